@@ -0,0 +1,270 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a stream of Boggle boards without any GUI. Boards are read from a
+ * file, or from standard input, one after another: each board is N lines
+ * of N tiles, in the same format BoggleBoard reads, and boards are
+ * separated by blank lines. Boards may have different sizes.
+ *
+ * Boards are solved on a pool of worker threads that all share one warm
+ * dictionary. Each result is written as soon as its board is solved, so
+ * results can come out in a different order than the boards went in:
+ * <pre>
+ * boardNumber	wordCount	WORD WORD WORD ...
+ * </pre>
+ * with the words in alphabetical order. Boards are numbered from 1. With a
+ * scoring table, each board is scored while it is solved, and the line
+ * also gives the board's score and the number of paths spelling each word:
+ * <pre>
+ * boardNumber	wordCount	score	WORD:paths WORD:paths ...
+ * </pre>
+ * A board that cannot be solved gets a line of its own instead, so every
+ * board number in the input still has one line in the output:
+ * <pre>
+ * boardNumber	ERROR message
+ * </pre>
+ * When the input runs out, the number of boards, the boards solved per
+ * second and percentiles of the per-board solve time are reported on
+ * standard error.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleBatch {
+	/** boards read ahead of the workers per worker thread before the reader waits */
+	private static final int QUEUED_BOARDS_PER_THREAD = 64;
+
+	private final BoggleDictionary dictionary;
+	private final BoggleBoard.Topology topology;
+	private final Writer out;
+	/** points for each word, or null not to score boards */
+	private BoggleScoring scoring;
+	/** solve time of each board, in nanoseconds */
+	private long[] latencies = new long[1024];
+	private int solved = 0;
+	/** boards that got an ERROR line */
+	private int failed = 0;
+
+	/**
+	 * @param dictionary words to search for, shared by every worker
+	 * @param topology how the cells of every board are connected
+	 * @param out where results are written
+	 */
+	public BoggleBatch(BoggleDictionary dictionary, BoggleBoard.Topology topology, Writer out) {
+		this.dictionary = dictionary;
+		this.topology = topology;
+		this.out = out;
+	}
+
+	/**
+	 * Configures the batch according to command line options and solves every board.
+	 *
+	 * @param args
+	 * 		file of boards, or "-" to read standard input (required)<br>
+	 * 		number of worker threads (optional, defaults to one per processor)<br>
+	 * 		dictionary file (optional, defaults to "dictionary.dat")<br>
+	 * 		one of "grid", "torus" or "hex" (optional, defaults to "grid")<br>
+	 * 		scoring table, see BoggleScoring.forName() (optional, defaults to no scoring)
+	 * @throws Exception if the boards or the dictionary cannot be read
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1 || args.length > 5){
+			throw new IllegalArgumentException("args must contain 1 to 5 fields: board file (or -), thread count, dictionary file, topology and scoring, in that order.");
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		String dictionaryFile = args.length > 2 ? args[2] : "dictionary.dat";
+		BoggleBoard.Topology topology = args.length > 3 ? BoggleBoard.Topology.valueOf(args[3]) : BoggleBoard.Topology.grid;
+
+		BufferedReader in = args[0].equals("-")
+				? new BufferedReader(new InputStreamReader(System.in))
+				: new BufferedReader(new FileReader(args[0]));
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+
+		BoggleBatch batch = new BoggleBatch(BoggleDictionary.getShared(dictionaryFile), topology, out);
+		if (args.length > 4) {
+			batch.setScoring(BoggleScoring.forName(args[4]));
+		}
+		long start = System.nanoTime();
+		batch.solveAll(in, threads);
+		long elapsed = System.nanoTime() - start;
+		in.close();
+		out.flush();
+		System.err.println(batch.report(elapsed));
+	}
+
+	/** @param scoring points for each word, or null to write word lists only (the default) */
+	public void setScoring(BoggleScoring scoring) {
+		this.scoring = scoring;
+	}
+
+	/**
+	 * Reads and solves boards until the input runs out, waiting for every
+	 * board to be solved and written before returning.
+	 *
+	 * @param in source of boards
+	 * @param threads number of worker threads
+	 * @throws IOException if reading fails or a result cannot be written
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public void solveAll(BufferedReader in, int threads) throws IOException, InterruptedException {
+		//a full queue makes the reader solve the next board itself, so reading never runs far ahead
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(threads * QUEUED_BOARDS_PER_THREAD),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		final IOException[] failure = new IOException[1];
+		int boardNumber = 0;
+		char[][] letters;
+		try {
+			while ((letters = readBoard(in)) != null) {
+				final int number = ++boardNumber;
+				final BoggleBoard board = new BoggleBoard(letters, topology);
+				workers.execute(new Runnable() {
+					public void run() {
+						try {
+							try {
+								solve(number, board);
+							} catch (RuntimeException re) {
+								fail(number, re);
+							}
+						} catch (IOException ioe) {
+							synchronized (failure) {
+								failure[0] = ioe;
+							}
+						}
+					}
+				});
+			}
+		} finally {
+			workers.shutdown();
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		synchronized (failure) {
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+		}
+	}
+
+	/**
+	 * Solves one board and writes its result line.
+	 *
+	 * @param number the board's position in the input, from 1
+	 * @param board the board to solve
+	 * @throws IOException if the result cannot be written
+	 */
+	private void solve(int number, BoggleBoard board) throws IOException {
+		long start = System.nanoTime();
+		ArrayList<String> words = new ArrayList<String>();
+		BoggleSolver solver = new BoggleSolver(board, dictionary);
+		solver.setScoring(scoring);
+		for (BoggleWord word : solver.solve()) {
+			words.add(word.getWord());
+		}
+		Collections.sort(words);
+		long latency = System.nanoTime() - start;
+
+		StringBuilder line = new StringBuilder();
+		line.append(number).append('\t').append(words.size()).append('\t');
+		if (scoring != null) {
+			line.append(solver.getScore()).append('\t');
+		}
+		for (int i = 0; i < words.size(); i++) {
+			if (i > 0) {
+				line.append(' ');
+			}
+			line.append(words.get(i));
+			if (scoring != null) {
+				line.append(':').append(solver.getPathCount(words.get(i)));
+			}
+		}
+		line.append('\n');
+		synchronized (this) {
+			out.write(line.toString());
+			if (solved == latencies.length) {
+				latencies = Arrays.copyOf(latencies, solved * 2);
+			}
+			latencies[solved++] = latency;
+		}
+	}
+
+	/**
+	 * Writes the error line for a board that could not be solved.
+	 *
+	 * @param number the board's position in the input, from 1
+	 * @param failure what went wrong
+	 * @throws IOException if the line cannot be written
+	 */
+	private synchronized void fail(int number, RuntimeException failure) throws IOException {
+		out.write(number + "\tERROR " + failure + "\n");
+		failed++;
+	}
+
+	/**
+	 * Reads the next board, skipping any blank lines before it.
+	 *
+	 * @param in source of boards
+	 * @return the board's tiles, or null if there are no more boards
+	 * @throws IOException if reading fails
+	 */
+	static char[][] readBoard(BufferedReader in) throws IOException {
+		String line = in.readLine();
+		while (line != null && BoggleBoard.countTiles(line) == 0) {
+			line = in.readLine();
+		}
+		if (line == null) {
+			return null;
+		}
+		int dimension = BoggleBoard.countTiles(line);
+		char[][] letters = new char[dimension][dimension];
+		for (int row = 0; row < dimension; row++) {
+			if (line == null || BoggleBoard.countTiles(line) != dimension) {
+				throw new IllegalArgumentException("every board must be N rows of N tiles");
+			}
+			BoggleBoard.parseRow(line, letters[row]);
+			line = row + 1 < dimension ? in.readLine() : null;
+		}
+		return letters;
+	}
+
+	/**
+	 * @param elapsed wall-clock time spent solving, in nanoseconds
+	 * @return summary of throughput and per-board solve time
+	 */
+	public synchronized String report(long elapsed) {
+		long[] sorted = Arrays.copyOf(latencies, solved);
+		Arrays.sort(sorted);
+		StringBuilder str = new StringBuilder();
+		str.append("boards: ").append(solved);
+		if (failed > 0) {
+			str.append(" (").append(failed).append(" failed)");
+		}
+		str.append(String.format(", %.1f s, %.1f boards/s", elapsed / 1e9, solved / (elapsed / 1e9)));
+		if (solved > 0) {
+			str.append(String.format("%nsolve time ms: p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f",
+					percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6,
+					percentile(sorted, 99.9) / 1e6, sorted[sorted.length - 1] / 1e6));
+		}
+		return str.toString();
+	}
+
+	/**
+	 * @param sorted values in ascending order, at least one
+	 * @param percent percentile to find, 0 to 100
+	 * @return the smallest value that at least percent of the values do not exceed
+	 */
+	private static long percentile(long[] sorted, double percent) {
+		int rank = (int) Math.ceil(percent / 100 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+} // class BoggleBatch
@@ -0,0 +1,456 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectOutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark suite for the Boggle solvers. Every case runs in its own JVM,
+ * so one case's JIT profile cannot slow down another. Each case is warmed
+ * up, then measured over several timed iterations, and reports:
+ * <ul>
+ * <li>mean time per operation, with the 99.9% error across iterations,</li>
+ * <li>bytes allocated per operation by the benchmark thread, and</li>
+ * <li>the number of collections and the collection time while measuring.</li>
+ * </ul>
+ * The cases cover full solves with BoggleSolver on 4x4 to 20x20 boards, on
+ * a per-board sub-dictionary (see BoggleDictionary.restrictTo()) and in
+ * each frontier order, BoggleSearch with each Storage as its frontier
+ * (depth first on the stacks, breadth first on the queues, best first on
+ * priority), dictionary loading from each supported file format, and
+ * BoggleSearch.findWords() on its own. Boards come from a fixed-seed
+ * corpus rolled with BoggleDice, so every run solves the same boards.
+ *
+ * Each run's results are written to bench/results/boggle-TIMESTAMP.csv,
+ * and two result files can be compared:
+ * <pre>
+ * java BoggleBenchmark [dictionary file] [case name filter]
+ * java BoggleBenchmark -compare old.csv new.csv
+ * </pre>
+ *
+ * JMH was the first choice, but it cannot generate harness code for
+ * classes in the default package, which is where the solver lives.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleBenchmark {
+	/** seed of the board corpus; changing it makes old results incomparable */
+	private static final long CORPUS_SEED = 20161017L;
+	/** boards per corpus; benchmarks cycle through them */
+	private static final int CORPUS_SIZE = 16;
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASUREMENT_ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 1000000000L;
+	/** Student's t for a 99.9% interval with MEASUREMENT_ITERATIONS - 1 degrees of freedom */
+	private static final double T_999 = 8.610;
+	private static final String RESULTS_DIRECTORY = "bench/results";
+	private static final String CSV_HEADER = "benchmark,ns_per_op,error_ns,alloc_bytes_per_op,gc_count,gc_ms,ops";
+
+	/** consumes benchmark results so the JIT cannot discard the work that produced them */
+	private static volatile int blackhole;
+
+	/**
+	 * Runs the benchmark suite, runs one case, or compares two result files.
+	 *
+	 * @param args
+	 * 		dictionary file (optional, defaults to "dictionary.dat")<br>
+	 * 		regular expression; only cases whose names contain a match are run (optional)<br>
+	 * 		or "-compare" followed by two result files<br>
+	 * 		or "-run", a case name and a dictionary file, used for the forked JVMs
+	 * @throws Exception if a case fails or results cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length == 3 && args[0].equals("-compare")){
+			compare(args[1], args[2]);
+		} else if(args.length == 3 && args[0].equals("-run")){
+			System.out.println(measure(cases(args[2]).get(args[1])));
+		} else if(args.length <= 2){
+			String dictionary = args.length > 0 ? args[0] : "dictionary.dat";
+			String filter = args.length > 1 ? args[1] : "";
+			runAll(dictionary, filter);
+		} else{
+			throw new IllegalArgumentException("args must be [dictionary [filter]], -compare old.csv new.csv, or -run case dictionary");
+		}
+	}
+
+	/**
+	 * Runs every case matching filter, each in a fresh JVM, and archives the results.
+	 * @param dictionary dictionary file for the cases
+	 * @param filter regular expression that case names must contain a match for
+	 */
+	private static void runAll(String dictionary, String filter) throws Exception {
+		File directory = new File(RESULTS_DIRECTORY);
+		directory.mkdirs();
+		File results = new File(directory, "boggle-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+		BufferedWriter out = new BufferedWriter(new FileWriter(results));
+		out.write(CSV_HEADER);
+		out.newLine();
+		System.out.println(CSV_HEADER);
+		String javaCommand = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		try {
+			for (String name : cases(dictionary).keySet()) {
+				if (!Pattern.compile(filter).matcher(name).find()) {
+					continue;
+				}
+				Process fork = new ProcessBuilder(javaCommand, "-cp", System.getProperty("java.class.path"),
+						"BoggleBenchmark", "-run", name, dictionary).redirectErrorStream(true).start();
+				BufferedReader forkOut = new BufferedReader(new InputStreamReader(fork.getInputStream()));
+				String line;
+				String last = null;
+				while ((line = forkOut.readLine()) != null) {
+					last = line;
+				}
+				if (fork.waitFor() != 0 || last == null) {
+					throw new IOException("benchmark " + name + " failed: " + last);
+				}
+				System.out.println(last);
+				out.write(last);
+				out.newLine();
+				out.flush();
+			}
+		} finally {
+			out.close();
+		}
+		System.out.println("results written to " + results);
+	}
+
+	/**
+	 * Warms a case up, then times it.
+	 * @param c the case to run
+	 * @return CSV line of results
+	 */
+	private static String measure(Case c) throws Exception {
+		c.setUp();
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+			iterate(c);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long gcCount = -gcCount();
+		long gcMillis = -gcMillis();
+		long allocated = -threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+		long totalOps = 0;
+		long setUpAllocated = 0;
+		for (int iteration = 0; iteration < MEASUREMENT_ITERATIONS; iteration++) {
+			long[] result = iterate(c);
+			nanosPerOp[iteration] = (double) result[1] / result[0];
+			totalOps += result[0];
+			setUpAllocated += result[2];
+		}
+		allocated += threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - setUpAllocated;
+		gcCount += gcCount();
+		gcMillis += gcMillis();
+
+		double mean = 0;
+		for (double value : nanosPerOp) {
+			mean += value / nanosPerOp.length;
+		}
+		double variance = 0;
+		for (double value : nanosPerOp) {
+			variance += (value - mean) * (value - mean) / (nanosPerOp.length - 1);
+		}
+		double error = T_999 * Math.sqrt(variance / nanosPerOp.length);
+		return String.format("%s,%.1f,%.1f,%d,%d,%d,%d", c.name, mean, error,
+				allocated / Math.max(1, totalOps), gcCount, gcMillis, totalOps);
+	}
+
+	/**
+	 * Runs a case repeatedly for ITERATION_NANOS, counting only the time spent in run().
+	 * @param c the case to run
+	 * @return operations, nanoseconds in run() and bytes allocated by beforeRun()
+	 */
+	private static long[] iterate(Case c) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long ops = 0;
+		long timed = 0;
+		long setUpAllocated = 0;
+		long end = System.nanoTime() + ITERATION_NANOS;
+		int sink = 0;
+		while (System.nanoTime() < end) {
+			if (c.perRunSetUp) {
+				long before = threads.getThreadAllocatedBytes(thread);
+				c.beforeRun();
+				setUpAllocated += threads.getThreadAllocatedBytes(thread) - before;
+			}
+			long start = System.nanoTime();
+			Object result = c.run();
+			timed += System.nanoTime() - start;
+			sink += result == null ? 0 : System.identityHashCode(result);
+			ops++;
+		}
+		blackhole = sink;
+		return new long[] {ops, timed, setUpAllocated};
+	}
+
+	/** @return collections so far, over all collectors */
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	/** @return milliseconds spent collecting so far, over all collectors */
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+
+	/**
+	 * Prints each case found in both result files with the change in time and allocation.
+	 * @param oldFile earlier results
+	 * @param newFile later results
+	 */
+	private static void compare(String oldFile, String newFile) throws IOException {
+		LinkedHashMap<String, String[]> before = readResults(oldFile);
+		LinkedHashMap<String, String[]> after = readResults(newFile);
+		System.out.println(String.format("%-40s %14s %14s %8s %14s %14s", "benchmark", "old ns/op", "new ns/op", "change",
+				"old B/op", "new B/op"));
+		for (String name : after.keySet()) {
+			if (!before.containsKey(name)) {
+				continue;
+			}
+			double oldNanos = Double.parseDouble(before.get(name)[1]);
+			double newNanos = Double.parseDouble(after.get(name)[1]);
+			System.out.println(String.format("%-40s %14.1f %14.1f %+7.1f%% %14s %14s", name, oldNanos, newNanos,
+					100 * (newNanos - oldNanos) / oldNanos, before.get(name)[3], after.get(name)[3]));
+		}
+	}
+
+	/** @return the rows of a result file, keyed by case name */
+	private static LinkedHashMap<String, String[]> readResults(String filename) throws IOException {
+		LinkedHashMap<String, String[]> rows = new LinkedHashMap<String, String[]>();
+		BufferedReader in = new BufferedReader(new FileReader(filename));
+		try {
+			String line = in.readLine(); //header
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split(",");
+				rows.put(fields[0], fields);
+			}
+		} finally {
+			in.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * @param dimension dimension N of the boards
+	 * @return CORPUS_SIZE boards rolled from a seed that depends only on dimension
+	 */
+	private static BoggleBoard[] corpus(int dimension) {
+		Random rand = new Random(CORPUS_SEED + dimension);
+		BoggleBoard[] boards = new BoggleBoard[CORPUS_SIZE];
+		for (int i = 0; i < boards.length; i++) {
+			BoggleDice dice = new BoggleDice(dimension * dimension, rand);
+			char[][] letters = new char[dimension][dimension];
+			for (int cell = 0; cell < dimension * dimension; cell++) {
+				letters[cell / dimension][cell % dimension] = dice.getLetter(cell);
+			}
+			boards[i] = new BoggleBoard(letters, BoggleBoard.Topology.grid);
+		}
+		return boards;
+	}
+
+	/**
+	 * @param dictionaryFile dictionary for the cases
+	 * @return every case, keyed by name, in the order they run
+	 */
+	private static LinkedHashMap<String, Case> cases(final String dictionaryFile) {
+		LinkedHashMap<String, Case> cases = new LinkedHashMap<String, Case>();
+		for (final int dimension : new int[] {4, 5, 6, 10, 20}) {
+			add(cases, new Case("solve/dimension=" + dimension) {
+				private BoggleDictionary dictionary;
+				private BoggleBoard[] boards;
+				private int next;
+
+				void setUp() throws Exception {
+					dictionary = new BoggleDictionary(dictionaryFile);
+					boards = corpus(dimension);
+				}
+
+				Object run() {
+					return new BoggleSolver(boards[next++ % boards.length], dictionary).solve();
+				}
+			});
+		}
+		for (final int dimension : new int[] {4, 5, 6}) {
+			add(cases, new Case("prefilter/dimension=" + dimension) {
+				private BoggleDictionary dictionary;
+				private BoggleBoard[] boards;
+				private int next;
+
+				void setUp() throws Exception {
+					dictionary = new BoggleDictionary(dictionaryFile);
+					boards = corpus(dimension);
+				}
+
+				Object run() {
+					BoggleBoard board = boards[next++ % boards.length];
+					return new BoggleSolver(board, dictionary.restrictTo(board.getTileCounts(), board.getAdjacentLetters())).solve();
+				}
+			});
+		}
+		for (final IntStorage.DataStructure order : IntStorage.DataStructure.values()) {
+			add(cases, new Case("frontier/order=" + order + "/dimension=6") {
+				private BoggleDictionary dictionary;
+				private BoggleBoard[] boards;
+				private int next;
+
+				void setUp() throws Exception {
+					dictionary = new BoggleDictionary(dictionaryFile);
+					boards = corpus(6);
+				}
+
+				Object run() {
+					final int[] count = new int[1];
+					new BoggleSolver(boards[next++ % boards.length], dictionary).solve(new WordSink() {
+						public void wordFound(BoggleWord word) {
+							count[0]++;
+						}
+					}, order);
+					return count;
+				}
+			});
+		}
+		for (final int dimension : new int[] {4, 5, 6}) {
+			for (final Storage.DataStructure structure : Storage.DataStructure.values()) {
+				add(cases, new Case("classic/storage=" + structure + "/dimension=" + dimension) {
+					private BoggleSearch search;
+					private BoggleBoard[] boards;
+					private int next;
+
+					void setUp() throws Exception {
+						search = new BoggleSearch(dimension, new BoggleDictionary(dictionaryFile));
+						boards = corpus(dimension);
+					}
+
+					Object run() {
+						return search.search(boards[next++ % boards.length], search.createStorage(structure));
+					}
+				});
+			}
+		}
+		for (final String format : new String[] {"compiled", "serialized", "wordlist"}) {
+			add(cases, new Case("load/format=" + format) {
+				private File file;
+
+				void setUp() throws Exception {
+					ArrayList<String> words = new ArrayList<String>();
+					Iterator<String> iter = new BoggleDictionary(dictionaryFile).iterator();
+					while (iter.hasNext()) {
+						words.add(iter.next());
+					}
+					file = File.createTempFile("boggle-dictionary", "." + format);
+					file.deleteOnExit();
+					if (format.equals("compiled")) {
+						BoggleDictionary.compile(words, file.getPath());
+					} else if (format.equals("serialized")) {
+						ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+						out.writeObject(new HashSet<String>(words));
+						out.close();
+					} else {
+						BufferedWriter out = new BufferedWriter(new FileWriter(file));
+						for (String word : words) {
+							out.write(word);
+							out.newLine();
+						}
+						out.close();
+					}
+				}
+
+				Object run() throws Exception {
+					return new BoggleDictionary(file.getPath());
+				}
+			});
+		}
+		add(cases, new Case("findWords/dimension=6", true) {
+			private BoggleDictionary dictionary;
+			private BoggleSearch search;
+			private ArrayList<BoggleSearch.BoggleSearchState> states = new ArrayList<BoggleSearch.BoggleSearchState>();
+			private Storage<BoggleSearch.BoggleSearchState> store;
+
+			void setUp() throws Exception {
+				dictionary = new BoggleDictionary(dictionaryFile);
+				search = new BoggleSearch(6, dictionary);
+				for (BoggleBoard board : corpus(6)) {
+					//every word several times over, like the store holds after a real search
+					ArrayList<BoggleSearch.BoggleSearchState> found = new ArrayList<BoggleSearch.BoggleSearchState>();
+					for (BoggleWord word : search.search(board, new Storage<BoggleSearch.BoggleSearchState>(Storage.DataStructure.stack))) {
+						found.add(search.toSearchState(word));
+					}
+					for (int copy = 0; copy < 4; copy++) {
+						states.addAll(found);
+					}
+				}
+			}
+
+			void beforeRun() {
+				store = new Storage<BoggleSearch.BoggleSearchState>(Storage.DataStructure.stack);
+				for (BoggleSearch.BoggleSearchState state : states) {
+					store.store(state);
+				}
+			}
+
+			Object run() {
+				BoggleWordList found = new BoggleWordList(6);
+				search.findWords(store, dictionary, found);
+				return found;
+			}
+		});
+		return cases;
+	}
+
+	private static void add(LinkedHashMap<String, Case> cases, Case c) {
+		cases.put(c.name, c);
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLEBENCHMARK.CASE
+	////////////////////////////////////////////////////////
+
+	/** One benchmark: set up once, then run() is timed over and over. */
+	private abstract static class Case {
+		private final String name;
+		/** true if beforeRun() must be called, untimed, before every run() */
+		private final boolean perRunSetUp;
+
+		Case(String name) {
+			this(name, false);
+		}
+
+		Case(String name, boolean perRunSetUp) {
+			this.name = name;
+			this.perRunSetUp = perRunSetUp;
+		}
+
+		/** Prepare everything run() needs; not timed. */
+		abstract void setUp() throws Exception;
+
+		/** Prepare for a single run(); not timed. Only called if perRunSetUp. */
+		void beforeRun() throws Exception {
+		}
+
+		/** @return the result of one operation, consumed so it cannot be optimized away */
+		abstract Object run() throws Exception;
+	} //BoggleBenchmark.Case inner class
+} // class BoggleBenchmark
@@ -5,10 +5,33 @@ import java.util.Scanner;
 /** 
  * Represents a Boggle game board with letters loaded from a configuration file.
  * 
+ * Cells are also numbered row * N + col, and the board precomputes which
+ * cells neighbor each cell according to its Topology. Searches walk that
+ * table instead of working out neighbors themselves, so the same search
+ * runs unchanged on any topology. A cell holding BLOCKED has no letter and
+ * no neighbors, and is never part of a path.
+ * 
  * @author mvail
  */
 public class BoggleBoard {
+	/** supported ways of connecting cells */
+	public static enum Topology {
+		/** standard Boggle: the up to 8 surrounding cells */
+		grid,
+		/** like grid, but edges wrap around to the opposite side */
+		torus,
+		/** hexagonal cells in axial coordinates: row - 1 (col, col + 1),
+		 * the same row (col - 1, col + 1) and row + 1 (col - 1, col) */
+		hex
+	}
+	/** marks a cell with no tile in a board file or letter grid */
+	public static final char BLOCKED = '#';
+
 	private char[][] board;
+	private Topology topology;
+	/** neighbors of cell c are neighborCells[neighborStarts[c]] up to (not including) neighborCells[neighborStarts[c + 1]] */
+	private int[] neighborStarts;
+	private int[] neighborCells;
 	
 	/** Construct a BoggleBoard from a given board config file.
 	 * May throw a wide assortment of Exceptions if parsing the
@@ -21,21 +44,145 @@ public class BoggleBoard {
 	 * @throws FileNotFoundException
 	 */
 	public BoggleBoard(int boardDimension, String filename) throws FileNotFoundException {
+		this(boardDimension, filename, Topology.grid);
+	}
+	
+	/** Construct a BoggleBoard from a given board config file.
+	 * May throw a wide assortment of Exceptions if parsing the
+	 * file is not a valid config file.
+	 * 
+	 * @param boardDimension
+	 * 		dimension N for the NxN grid
+	 * @param filename
+	 * 		file containing a grid of letters, with BLOCKED for cells without a tile
+	 * @param topology
+	 * 		how cells are connected
+	 * @throws FileNotFoundException
+	 */
+	public BoggleBoard(int boardDimension, String filename, Topology topology) throws FileNotFoundException {
 		board = new char[boardDimension][boardDimension];
 		Scanner fileScan = new Scanner(new File(filename));
-		String line;
 		for (int row = 0; row < boardDimension; row++) {
-			line = fileScan.nextLine().toUpperCase();
-			int charIdx = 0;
-			for (int col = 0; col < boardDimension; col++) {
-				while (!Character.isLetter(line.charAt(charIdx))) {
-					charIdx++;
-				}
-				board[row][col] = line.charAt(charIdx);
+			parseRow(fileScan.nextLine(), board[row]);
+		}
+		fileScan.close();
+		this.topology = topology;
+		buildNeighbors();
+	}
+	
+	/** Construct a BoggleBoard from a grid of letters, with the grid topology.
+	 * 
+	 * @param letters
+	 * 		NxN grid of letters, with BLOCKED for cells without a tile; copied
+	 */
+	public BoggleBoard(char[][] letters) {
+		this(letters, Topology.grid);
+	}
+	
+	/** Construct a BoggleBoard from a grid of letters.
+	 * 
+	 * @param letters
+	 * 		NxN grid of letters, with BLOCKED for cells without a tile; copied
+	 * @param topology
+	 * 		how cells are connected
+	 */
+	public BoggleBoard(char[][] letters, Topology topology) {
+		board = new char[letters.length][letters.length];
+		for (int row = 0; row < letters.length; row++) {
+			if (letters[row].length != letters.length) {
+				throw new IllegalArgumentException("board must be square");
+			}
+			for (int col = 0; col < letters.length; col++) {
+				board[row][col] = Character.toUpperCase(letters[row][col]);
+			}
+		}
+		this.topology = topology;
+		buildNeighbors();
+	}
+	
+	/** Read one row of a board config file, skipping anything between tiles
+	 * that is not a letter or BLOCKED.
+	 * 
+	 * @param line
+	 * 		text of the row
+	 * @param row
+	 * 		filled with the row's tiles, in upper case
+	 */
+	public static void parseRow(String line, char[] row) {
+		line = line.toUpperCase();
+		int charIdx = 0;
+		for (int col = 0; col < row.length; col++) {
+			while (!Character.isLetter(line.charAt(charIdx)) && line.charAt(charIdx) != BLOCKED) {
 				charIdx++;
 			}
+			row[col] = line.charAt(charIdx);
+			charIdx++;
 		}
-		fileScan.close();
+	}
+	
+	/** @param line
+	 * 		text of a row in a board config file
+	 * @return number of tiles (letters or BLOCKED) in the row
+	 */
+	public static int countTiles(String line) {
+		int count = 0;
+		for (int charIdx = 0; charIdx < line.length(); charIdx++) {
+			if (Character.isLetter(line.charAt(charIdx)) || line.charAt(charIdx) == BLOCKED) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/** Fill in the neighbor table for the board's topology. */
+	private void buildNeighbors() {
+		int dimension = board.length;
+		int cellCount = dimension * dimension;
+		neighborStarts = new int[cellCount + 1];
+		int[] cells = new int[cellCount * 8];
+		int count = 0;
+		for (int cell = 0; cell < cellCount; cell++) {
+			neighborStarts[cell] = count;
+			int row = cell / dimension;
+			int col = cell % dimension;
+			if (board[row][col] == BLOCKED) {
+				continue;
+			}
+			for (int rowDelta = -1; rowDelta <= 1; rowDelta++) {
+				for (int colDelta = -1; colDelta <= 1; colDelta++) {
+					int nextRow = row + rowDelta;
+					int nextCol = col + colDelta;
+					switch (topology) {
+					case grid:
+						break;
+					case torus:
+						nextRow = (nextRow + dimension) % dimension;
+						nextCol = (nextCol + dimension) % dimension;
+						break;
+					case hex:
+						if (rowDelta == colDelta) { //(-1, -1) and (1, 1) are not hex neighbors
+							continue;
+						}
+					}
+					if ((rowDelta == 0 && colDelta == 0)
+							|| nextRow < 0 || nextRow >= dimension || nextCol < 0 || nextCol >= dimension
+							|| board[nextRow][nextCol] == BLOCKED) {
+						continue;
+					}
+					int next = nextRow * dimension + nextCol;
+					boolean listed = next == cell; //small tori wrap back onto the cell itself
+					for (int i = neighborStarts[cell]; i < count && !listed; i++) {
+						listed = cells[i] == next; //or reach the same neighbor twice
+					}
+					if (!listed) {
+						cells[count++] = next;
+					}
+				}
+			}
+		}
+		neighborStarts[cellCount] = count;
+		neighborCells = new int[count];
+		System.arraycopy(cells, 0, neighborCells, 0, count);
 	}
 	
 	/** Return the char at board position x,y
@@ -64,6 +211,94 @@ public class BoggleBoard {
 		return str.toString();
 	}
 	
+	/** @param tile a tile on a board
+	 * @return tile - 'A' for the letters A to Z, or -1 for any other tile,
+	 * BLOCKED included; no dictionary word uses those, such as an accented
+	 * letter read from a board file
+	 */
+	public static int letterIndex(char tile) {
+		return tile >= 'A' && tile <= 'Z' ? tile - 'A' : -1;
+	}
+	
+	/** @return number of tiles of each letter, by letter - 'A'; a 'Q' tile,
+	 * which spells "QU", counts as a Q only, and tiles that are not letters
+	 * A to Z are not counted
+	 */
+	public int[] getTileCounts() {
+		int[] counts = new int[26];
+		for (int row = 0; row < board.length; row++) {
+			for (int col = 0; col < board[row].length; col++) {
+				int letter = letterIndex(board[row][col]);
+				if (letter >= 0) {
+					counts[letter]++;
+				}
+			}
+		}
+		return counts;
+	}
+	
+	/** @return for each letter, by letter - 'A', bit (letter - 'A') set for
+	 * each letter on a cell next to some cell holding it. Two consecutive
+	 * tiles of a word can only be spelled if the second is set for the first.
+	 * Tiles that are not letters A to Z are next to nothing.
+	 */
+	public int[] getAdjacentLetters() {
+		int dimension = board.length;
+		int[] adjacent = new int[26];
+		for (int cell = 0; cell < dimension * dimension; cell++) {
+			int letter = letterIndex(board[cell / dimension][cell % dimension]);
+			if (letter < 0) {
+				continue;
+			}
+			for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++) {
+				int next = letterIndex(board[neighborCells[i] / dimension][neighborCells[i] % dimension]);
+				if (next >= 0) {
+					adjacent[letter] |= 1 << next;
+				}
+			}
+		}
+		return adjacent;
+	}
+	
+	/** @return how cells are connected */
+	public Topology getTopology() {
+		return topology;
+	}
+	
+	/** @param cell cell index (row * N + col)
+	 * @param other another cell index
+	 * @return true if a path may step from cell to other
+	 */
+	public boolean isNeighbor(int cell, int other) {
+		for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++) {
+			if (neighborCells[i] == other) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/** @return copy of the neighbor table index: the neighbors of cell c are
+	 * getNeighborCells()[starts[c]] up to (not including) getNeighborCells()[starts[c + 1]]
+	 */
+	public int[] getNeighborStarts() {
+		int[] copy = new int[neighborStarts.length];
+		System.arraycopy(neighborStarts, 0, copy, 0, neighborStarts.length);
+		return copy;
+	}
+	
+	/** @return copy of the neighbor table, every cell's neighbors one after another */
+	public int[] getNeighborCells() {
+		int[] copy = new int[neighborCells.length];
+		System.arraycopy(neighborCells, 0, copy, 0, neighborCells.length);
+		return copy;
+	}
+	
+	/** @return dimension N of the NxN grid */
+	public int getDimension() {
+		return board.length;
+	}
+	
 	/** @return copy of board */
 	public char[][] getBoard() {
 		char[][] copy = new char[board.length][board[0].length];
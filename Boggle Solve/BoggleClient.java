@@ -0,0 +1,199 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Talks to a BoggleServer on the same machine. A client holds one
+ * connection and sends one board at a time; use one client per thread.
+ * When the server answers BUSY the client waits, longer each time, and
+ * sends the board again, reconnecting first if the server had no room for
+ * the connection.
+ *
+ * Run from the command line, it sends a file of boards to a server over
+ * several connections at once and writes the results in the same format
+ * as BoggleBatch, which makes it a load test for the server as well as a
+ * check of its answers.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleClient {
+	/** times a board is sent again after BUSY before giving up */
+	private static final int MAX_RETRIES = 50;
+	/** wait after the first BUSY; doubled after each one after that, up to MAX_BACKOFF_MS */
+	private static final int FIRST_BACKOFF_MS = 1;
+	private static final int MAX_BACKOFF_MS = 100;
+
+	private final int port;
+	private Socket socket;
+	private BufferedReader in;
+	private Writer out;
+	/** number of BUSY answers this client has had */
+	private int retries = 0;
+
+	/**
+	 * Connects to a server on this machine.
+	 * @param port the server's port
+	 * @throws IOException if the server cannot be reached
+	 */
+	public BoggleClient(int port) throws IOException {
+		this.port = port;
+		connect();
+	}
+
+	/** Open a new connection to the server. */
+	private void connect() throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+		out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "US-ASCII"));
+	}
+
+	/**
+	 * Configures the client according to command line options and sends every board.
+	 *
+	 * @param args
+	 * 		file of boards, or "-" to read standard input (required)<br>
+	 * 		number of connections (optional, defaults to 1)<br>
+	 * 		the server's port (optional, defaults to BoggleServer.DEFAULT_PORT)
+	 * @throws Exception if the boards cannot be read or the server cannot be reached
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1 || args.length > 3){
+			throw new IllegalArgumentException("args must contain 1 to 3 fields: board file (or -), connection count and port, in that order.");
+		}
+		int connectionCount = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		final int port = args.length > 2 ? Integer.parseInt(args[2]) : BoggleServer.DEFAULT_PORT;
+
+		BufferedReader boardsIn = args[0].equals("-")
+				? new BufferedReader(new InputStreamReader(System.in))
+				: new BufferedReader(new FileReader(args[0]));
+		final ArrayList<BoggleBoard> boards = new ArrayList<BoggleBoard>();
+		char[][] letters;
+		while ((letters = BoggleBatch.readBoard(boardsIn)) != null) {
+			boards.add(new BoggleBoard(letters, BoggleBoard.Topology.grid));
+		}
+		boardsIn.close();
+
+		final Writer results = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+		final long[] latencies = new long[boards.size()];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger busy = new AtomicInteger();
+		final Exception[] failure = new Exception[1];
+		Thread[] threads = new Thread[connectionCount];
+		long start = System.nanoTime();
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						BoggleClient client = new BoggleClient(port);
+						try {
+							int index;
+							while ((index = next.getAndIncrement()) < boards.size()) {
+								long sent = System.nanoTime();
+								String[] words = client.solve(boards.get(index));
+								latencies[index] = System.nanoTime() - sent;
+								StringBuilder line = new StringBuilder();
+								line.append(index + 1).append('\t').append(words.length).append('\t');
+								for (int i = 0; i < words.length; i++) {
+									if (i > 0) {
+										line.append(' ');
+									}
+									line.append(words[i]);
+								}
+								line.append('\n');
+								synchronized (results) {
+									results.write(line.toString());
+								}
+							}
+						} finally {
+							busy.addAndGet(client.getRetries());
+							client.close();
+						}
+					} catch (IOException | InterruptedException e) {
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		results.flush();
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+
+		Arrays.sort(latencies);
+		System.err.println(String.format("boards: %d over %d connections, %.1f s, %.1f boards/s, %d busy",
+				boards.size(), connectionCount, elapsed / 1e9, boards.size() / (elapsed / 1e9), busy.get()));
+		if (latencies.length > 0) {
+			System.err.println(String.format("round trip ms: p50 %.3f, p99 %.3f, max %.3f",
+					latencies[(latencies.length - 1) / 2] / 1e6, latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6,
+					latencies[latencies.length - 1] / 1e6));
+		}
+	}
+
+	/**
+	 * Sends a board and waits for its words, sending it again while the server is busy.
+	 * @param board the board to solve; its topology is the server's, not the board's
+	 * @return the words on the board, in alphabetical order
+	 * @throws IOException if the connection fails, the server reports an
+	 * 		error, or it stays busy through every retry
+	 * @throws InterruptedException if interrupted while waiting to retry
+	 */
+	public String[] solve(BoggleBoard board) throws IOException, InterruptedException {
+		String request = board.toString();
+		int backoff = FIRST_BACKOFF_MS;
+		for (int attempt = 0; ; attempt++) {
+			out.write(request);
+			out.flush();
+			String reply = in.readLine();
+			if (reply == null) {
+				throw new IOException("server closed the connection");
+			}
+			if (reply.startsWith("ERROR")) {
+				throw new IOException(reply);
+			}
+			if (!reply.startsWith("BUSY")) {
+				int tab = reply.indexOf('\t');
+				if (Integer.parseInt(reply.substring(0, tab)) == 0) {
+					return new String[0];
+				}
+				return reply.substring(tab + 1).split(" ");
+			}
+			retries++;
+			if (attempt == MAX_RETRIES) {
+				throw new IOException("server busy");
+			}
+			Thread.sleep(backoff);
+			backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+			if (reply.equals(BoggleServer.CONNECTION_BUSY)) {
+				socket.close();
+				connect();
+			}
+		}
+	}
+
+	/** @return number of BUSY answers this client has had */
+	public int getRetries() {
+		return retries;
+	}
+
+	/** Closes the connection. */
+	public void close() throws IOException {
+		socket.close();
+	}
+} // class BoggleClient
@@ -12,11 +12,22 @@ public class BoggleDice {
 	private Random rand;
 	private ArrayList<BoggleDie> baseSet;
 	private char[] dice;
+	/** which die in the standard set produced each letter in dice */
+	private int[] dieNumbers;
 	private int numDice;
 	
 	/** Generate a set of numDice Boggle dice */
 	public BoggleDice(int numDice) {
-		rand = new Random(); //must come before creation of dice
+		this(numDice, new Random());
+	}
+	
+	/** Generate a set of numDice Boggle dice that take all their randomness
+	 * from rand, so a seeded Random rolls the same boards every time.
+	 * @param numDice number of letters to roll
+	 * @param rand source of every shuffle and roll
+	 */
+	public BoggleDice(int numDice, Random rand) {
+		this.rand = rand; //must come before creation of dice
 		//NOTE: an ArrayList is used, rather than an array, in order to
 		// take advantage of the Collections.shuffle() method, which is
 		// not available for basic arrays
@@ -38,8 +49,13 @@ public class BoggleDice {
 		baseSet.add(new BoggleDie("NMIQHU"));
 		baseSet.add(new BoggleDie("OBBAOJ"));
 		
+		for (int number = 0; number < baseSet.size(); number++) {
+			baseSet.get(number).number = number;
+		}
+		
 		this.numDice = numDice;
 		dice = new char[numDice];
+		dieNumbers = new int[numDice];
 		shuffleDice();
 	}
 	
@@ -52,7 +68,38 @@ public class BoggleDice {
 				shuffleBaseSet();
 			}
 			dice[count] = baseSet.get(count % baseSet.size()).getLetter();
+			dieNumbers[count] = baseSet.get(count % baseSet.size()).number;
+		}
+	}
+	
+	/** @return number of letters rolled */
+	public int size() {
+		return numDice;
+	}
+	
+	/** @return number of dice in the standard set */
+	public int getStandardDieCount() {
+		return baseSet.size();
+	}
+	
+	/** Get which standard die produced the letter at index
+	 * @param index location of letter
+	 * @return number of the die in the standard set, from 0 to getStandardDieCount() - 1
+	 */
+	public int getDieNumber(int index) {
+		return dieNumbers[index];
+	}
+	
+	/** @param number number of a die in the standard set
+	 * @return the letters on that die's faces
+	 */
+	public String getDieFaces(int number) {
+		for (BoggleDie die : baseSet) {
+			if (die.number == number) {
+				return die.letters;
+			}
 		}
+		throw new IllegalArgumentException();
 	}
 	
 	/** Get the letter at index
@@ -65,7 +112,7 @@ public class BoggleDice {
 	
 	/** Shuffle the base set of dice */
 	private void shuffleBaseSet() {
-		Collections.shuffle(baseSet); //reorder dice
+		Collections.shuffle(baseSet, rand); //reorder dice
 		for (BoggleDie die : baseSet) {
 			die.roll(); //select a random letter for each die
 		}
@@ -90,6 +137,8 @@ public class BoggleDice {
 	private class BoggleDie {
 		private String letters;
 		private char curLetter;
+		/** position of this die in the standard set, which shuffling does not change */
+		private int number;
 		
 		/** @param dieLetters the set of letters that this BoggleDie can return */
 		public BoggleDie(String dieLetters) {
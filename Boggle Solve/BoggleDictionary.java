@@ -1,32 +1,225 @@
 //	BoggleDictionary.java
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.ObjectInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Scanner;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /** 
 	A class that stores a dictionary containing words that can be used in a
 	Boggle game.
 
+	In addition to whole-word lookups, the dictionary exposes a prefix trie
+	so that a search can stop extending a path as soon as its letters stop
+	being the start of some dictionary word. Trie nodes are plain int
+	handles: start from getRoot() and step one letter at a time with
+	child(), which returns NO_NODE when no word continues with that letter.
+
+	Dictionaries can be loaded from three kinds of file. A compiled
+	dictionary (see compile() and BoggleDictionaryCompiler) is memory mapped
+	and used in place, so loading it reads almost nothing up front and
+	every JVM on the host shares the same pages. The original serialized
+	HashSet format (dictionary.dat) and plain word lists, one word per
+	line, are still accepted and are indexed in memory instead.
+
+	A BoggleDictionary never changes once it is constructed, so one
+	instance can be shared by any number of searches and threads. Use
+	getShared() to load each dictionary file only once per process.
+
 	@author Teresa Cole
 	@version CS221
  */
 public class BoggleDictionary
 {
-	private HashSet<String> dictionary;
+	/** handle returned by child() when no dictionary word has the given prefix */
+	public static final int NO_NODE = -1;
+
+	/** first int of a compiled dictionary file */
+	private static final int MAGIC = 0x42444354; //"BDCT"
+	/** layout version of compiled dictionary files */
+	private static final int FORMAT_VERSION = 1;
+	/** ints before the first trie node: magic, version, node count, word count */
+	private static final int HEADER_SIZE = 4;
+	/** first two bytes of a java.io.ObjectOutputStream */
+	private static final int SERIALIZATION_MAGIC = 0xACED;
+
+	/** number of letters A..Z a trie node can branch on */
+	private static final int ALPHABET_SIZE = 26;
+	/** ints used to store a single trie node */
+	private static final int NODE_SIZE = 2;
+	/** node field: bits 0..25 mark which letters have a child, TERMINAL marks a word */
+	private static final int MASK_FIELD = 0;
+	/** node field: index of the node's first child; siblings are stored contiguously in letter order */
+	private static final int FIRST_CHILD_FIELD = 1;
+	private static final int TERMINAL = 1 << 31;
+
+	/** dictionaries already loaded by getShared(), keyed by canonical file path */
+	private static final HashMap<String, BoggleDictionary> shared = new HashMap<String, BoggleDictionary>();
+
+	/** flattened prefix trie holding every word, either on the heap or mapped from a file.
+	 * Only absolute get()s are used on it, so concurrent readers never disturb each other. */
+	private final IntBuffer trie;
+	/** number of words in the trie */
+	private final int size;
+	/** number of words at or below each trie node, built the first time
+	 * countWordsBelow() is called */
+	private volatile int[] wordsBelow;
+	/** letters in the longest word below each trie node, beyond the node's
+	 * own prefix, built the first time maxLengthBelow() is called */
+	private volatile int[] lengthsBelow;
+	/** letters (bit 0 for A) that appear in some word below each trie node,
+	 * beyond the node's own prefix, built the first time lettersBelow() is called */
+	private volatile int[] lettersBelow;
 
 	/** Create the BoggleDictionary from the file dictionary.dat
 	 */
-	@SuppressWarnings("unchecked")
 	public BoggleDictionary() throws Exception {
-		ObjectInputStream dictFile = new ObjectInputStream(
-				new FileInputStream( new File( "dictionary.dat")));
-		dictionary = (HashSet<String>)dictFile.readObject();
-		dictFile.close();
+		this( "dictionary.dat");
+	}
+
+	/** Create the BoggleDictionary from a compiled dictionary, a serialized
+	 * HashSet of words or a plain word list, whichever filename holds.
+	 * @param filename file to load the dictionary from
+	 */
+	@SuppressWarnings("unchecked")
+	public BoggleDictionary( String filename) throws Exception {
+		File file = new File( filename);
+		DataInputStream in = new DataInputStream(
+				new BufferedInputStream( new FileInputStream( file)));
+		int magic = file.length() >= 4 ? in.readInt() : 0;
+		in.close();
+
+		if (magic == MAGIC) {
+			IntBuffer compiled = mapCompiled(file);
+			size = compiled.get(3);
+			compiled.position(HEADER_SIZE);
+			trie = compiled.slice();
+		} else if ((magic >>> 16) == SERIALIZATION_MAGIC) {
+			ObjectInputStream dictFile = new ObjectInputStream(
+					new FileInputStream( file));
+			HashSet<String> words = (HashSet<String>)dictFile.readObject();
+			dictFile.close();
+			trie = IntBuffer.wrap(buildTrie(words));
+			size = countWords(trie);
+		} else {
+			ArrayList<String> words = new ArrayList<String>();
+			Scanner wordFile = new Scanner( file);
+			while (wordFile.hasNext()) {
+				words.add(wordFile.next());
+			}
+			wordFile.close();
+			trie = IntBuffer.wrap(buildTrie(words));
+			size = countWords(trie);
+		}
+	}
+
+	/** Create a BoggleDictionary holding words, indexed in memory.
+	 * @param words the words to include; anything not spelled with A..Z is skipped
+	 */
+	public BoggleDictionary( Collection<String> words)
+	{
+		this( buildTrie(words));
+	}
+
+	/** Wrap a flattened trie built in memory.
+	 * @param nodes the trie, root node at index 0
+	 */
+	private BoggleDictionary( int[] nodes)
+	{
+		trie = IntBuffer.wrap(nodes);
+		size = countWords(trie);
+	}
+
+	/** Get the dictionary stored in filename, loading it only the first time
+	 * any caller asks for that file. Later calls, from any thread, return
+	 * the same instance.
+	 * @param filename file to load the dictionary from
+	 * @return the shared dictionary for filename
+	 */
+	public static BoggleDictionary getShared( String filename) throws Exception
+	{
+		String key = new File( filename).getCanonicalPath();
+		synchronized (shared) {
+			BoggleDictionary dictionary = shared.get(key);
+			if (dictionary == null) {
+				dictionary = new BoggleDictionary( filename);
+				shared.put(key, dictionary);
+			}
+			return dictionary;
+		}
+	}
+
+	/** Map a compiled dictionary file into memory.
+	 * @param file compiled dictionary written by compile()
+	 * @return the whole file, header included, after checking the header
+	 */
+	private static IntBuffer mapCompiled( File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile( file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			//the mapping stays valid after the channel is closed
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			IntBuffer ints = mapped.asIntBuffer();
+			if (ints.capacity() < HEADER_SIZE) {
+				throw new IOException( file + " is truncated");
+			}
+			if (ints.get(1) != FORMAT_VERSION) {
+				throw new IOException( file + " is compiled dictionary version " + ints.get(1)
+						+ ", expected " + FORMAT_VERSION);
+			}
+			int nodeCount = ints.get(2);
+			if (ints.capacity() < HEADER_SIZE + nodeCount * NODE_SIZE) {
+				throw new IOException( file + " is truncated");
+			}
+			ints.limit(HEADER_SIZE + nodeCount * NODE_SIZE);
+			return ints;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/** Write words to filename as a compiled dictionary that the
+	 * BoggleDictionary(String) constructor can memory map.
+	 * @param words the words to include; anything not spelled with A..Z is skipped
+	 * @param filename file to create or overwrite
+	 * @return number of words written
+	 */
+	public static int compile( Collection<String> words, String filename) throws IOException
+	{
+		int[] nodes = buildTrie(words);
+		int wordCount = countWords(IntBuffer.wrap(nodes));
+		DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream( new FileOutputStream( filename)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(nodes.length / NODE_SIZE);
+			out.writeInt(wordCount);
+			for (int value : nodes) {
+				out.writeInt(value);
+			}
+		} finally {
+			out.close();
+		}
+		return wordCount;
 	}
 
 	/** Check to see if a string is in the dictionary to determine whether it
@@ -36,7 +229,322 @@ public class BoggleDictionary
 	 */
 	public boolean contains( String word)
 	{
-		return dictionary.contains( word);
+		int node = getRoot();
+		for (int i = 0; i < word.length() && node != NO_NODE; i++) {
+			node = child(node, word.charAt(i));
+		}
+		return node != NO_NODE && isWord(node);
+	}
+
+	/** @return number of words in the dictionary */
+	public int size()
+	{
+		return size;
+	}
+
+	/** Check to see if any word in the dictionary starts with prefix. A
+	 * complete word counts as a prefix of itself.
+	 * @param prefix the string to check for
+	 * @return true if some dictionary word begins with prefix
+	 */
+	public boolean isPrefix( String prefix)
+	{
+		int node = getRoot();
+		for (int i = 0; i < prefix.length() && node != NO_NODE; i++) {
+			node = child(node, prefix.charAt(i));
+		}
+		return node != NO_NODE;
+	}
+
+	/** @return the trie node for the empty prefix */
+	public int getRoot()
+	{
+		return 0;
+	}
+
+	/** Step from a trie node to the node for its prefix extended by letter.
+	 * @param node a node previously returned by getRoot() or child()
+	 * @param letter next letter of the prefix
+	 * @return node for the extended prefix, or NO_NODE if no word starts with it
+	 */
+	public int child( int node, char letter)
+	{
+		int index = Character.toUpperCase(letter) - 'A';
+		if (index < 0 || index >= ALPHABET_SIZE) {
+			return NO_NODE;
+		}
+		int mask = trie.get(node * NODE_SIZE + MASK_FIELD);
+		int bit = 1 << index;
+		if ((mask & bit) == 0) {
+			return NO_NODE;
+		}
+		//children are stored in letter order, so count the lower letters present
+		return trie.get(node * NODE_SIZE + FIRST_CHILD_FIELD) + Integer.bitCount(mask & (bit - 1));
+	}
+
+	/** @param node a trie node
+	 * @return true if the prefix leading to node is itself a dictionary word
+	 */
+	public boolean isWord( int node)
+	{
+		return (trie.get(node * NODE_SIZE + MASK_FIELD) & TERMINAL) != 0;
+	}
+
+	/** Count the words that start with the prefix leading to node, the
+	 * prefix itself included. A search can use this to try its most
+	 * promising prefixes first. The counts for every node are worked out
+	 * together on the first call, so later calls are a single array read.
+	 * @param node a trie node
+	 * @return number of dictionary words at or below node
+	 */
+	public int countWordsBelow( int node)
+	{
+		int[] counts = wordsBelow;
+		if (counts == null) {
+			//every child is numbered after its parent, so one backwards pass sees children first
+			int nodeCount = getNodeCount();
+			counts = new int[nodeCount];
+			for (int index = nodeCount - 1; index >= 0; index--) {
+				int mask = trie.get(index * NODE_SIZE + MASK_FIELD);
+				int count = (mask & TERMINAL) != 0 ? 1 : 0;
+				int firstChild = trie.get(index * NODE_SIZE + FIRST_CHILD_FIELD);
+				int childCount = Integer.bitCount(mask & ~TERMINAL);
+				for (int child = firstChild; child < firstChild + childCount; child++) {
+					count += counts[child];
+				}
+				counts[index] = count;
+			}
+			wordsBelow = counts; //racing threads build identical arrays, so either may win
+		}
+		return counts[node];
+	}
+
+	/** Find how many more letters the longest word starting with the prefix
+	 * leading to node has. A search can use this to give up on a path that
+	 * cannot reach some cell before every word below it runs out of letters.
+	 * The lengths for every node are worked out together on the first call.
+	 * @param node a trie node
+	 * @return letters in the longest word at or below node, less the letters leading to node
+	 */
+	public int maxLengthBelow( int node)
+	{
+		int[] lengths = lengthsBelow;
+		if (lengths == null) {
+			int nodeCount = getNodeCount();
+			lengths = new int[nodeCount];
+			for (int index = nodeCount - 1; index >= 0; index--) {
+				int mask = trie.get(index * NODE_SIZE + MASK_FIELD);
+				int firstChild = trie.get(index * NODE_SIZE + FIRST_CHILD_FIELD);
+				int childCount = Integer.bitCount(mask & ~TERMINAL);
+				int length = 0;
+				for (int child = firstChild; child < firstChild + childCount; child++) {
+					length = Math.max(length, lengths[child] + 1);
+				}
+				lengths[index] = length;
+			}
+			lengthsBelow = lengths;
+		}
+		return lengths[node];
+	}
+
+	/** Find which letters appear in the words starting with the prefix
+	 * leading to node, after that prefix. A search that needs its path to
+	 * pass through a certain letter can give up on a prefix whose words
+	 * never use it. The masks for every node are worked out together on
+	 * the first call.
+	 * @param node a trie node
+	 * @return bit (letter - 'A') set for each letter used below node
+	 */
+	public int lettersBelow( int node)
+	{
+		int[] masks = lettersBelow;
+		if (masks == null) {
+			int nodeCount = getNodeCount();
+			masks = new int[nodeCount];
+			for (int index = nodeCount - 1; index >= 0; index--) {
+				int mask = trie.get(index * NODE_SIZE + MASK_FIELD);
+				int firstChild = trie.get(index * NODE_SIZE + FIRST_CHILD_FIELD);
+				int letters = mask & ~TERMINAL; //the children's own letters
+				int childCount = Integer.bitCount(letters);
+				for (int child = firstChild; child < firstChild + childCount; child++) {
+					letters |= masks[child];
+				}
+				masks[index] = letters;
+			}
+			lettersBelow = masks;
+		}
+		return masks[node];
+	}
+
+	/** Build a much smaller dictionary holding only the words that the
+	 * given tiles could spell, if each tile could be used once in any order.
+	 * A word that needs a letter the tiles lack, or more copies of it than
+	 * they have, can never be on their board, so a search of that board can
+	 * walk the small trie instead and touch far less memory. A 'Q' tile
+	 * spells "QU", so words with a Q need a Q tile for each "QU", and no
+	 * word with a Q not followed by U is kept.
+	 *
+	 * Only prefixes the tiles can spell, in any order, are visited, and only
+	 * nodes on the way to a word they can spell are kept. That is still more
+	 * prefixes than a search of the board follows, since a search only
+	 * follows the ones spelled along paths, so the small trie pays for
+	 * itself when the same board is searched repeatedly or when this trie is
+	 * too big to stay in cache, not for a single search of a small board.
+	 * @param tileCounts number of tiles of each letter, by letter - 'A'
+	 * 		(see BoggleBoard.getTileCounts())
+	 * @return a dictionary of the words the tiles could spell
+	 */
+	public BoggleDictionary restrictTo( int[] tileCounts)
+	{
+		return restrictTo(tileCounts, null);
+	}
+
+	/** Build a much smaller dictionary holding only the words that the
+	 * given tiles could spell, as restrictTo(int[]) does, leaving out also
+	 * every word with two consecutive tiles whose letters are never
+	 * neighbors on the board. Each such pair cuts off a whole subtree before
+	 * it is visited, so this is both smaller and quicker to build.
+	 * @param tileCounts number of tiles of each letter, by letter - 'A'
+	 * 		(see BoggleBoard.getTileCounts())
+	 * @param adjacentLetters for each letter, by letter - 'A', bit (letter - 'A')
+	 * 		set for each letter on a neighboring cell (see BoggleBoard.getAdjacentLetters()),
+	 * 		or null to allow any pair
+	 * @return a dictionary of the words the tiles could spell
+	 */
+	public BoggleDictionary restrictTo( int[] tileCounts, int[] adjacentLetters)
+	{
+		int[] remaining = new int[ALPHABET_SIZE];
+		System.arraycopy(tileCounts, 0, remaining, 0, ALPHABET_SIZE);
+		//kept nodes in depth first order: the node in this trie, the kept node it hangs from,
+		//its letter, whether it ends a spellable word, and whether any spellable word is at or below it
+		int[] original = new int[64];
+		int[] parents = new int[64];
+		char[] letters = new char[64];
+		boolean[] words = new boolean[64];
+		boolean[] live = new boolean[64];
+		int keptCount = 1;
+		original[0] = getRoot();
+		parents[0] = -1;
+		//the search stack, one frame per tile: the kept node reached, the tile used and the next letter to try
+		int[] frameNodes = new int[16];
+		int[] frameTiles = new int[16];
+		int[] frameNext = new int[16];
+		int depth = 1;
+		frameNodes[0] = 0;
+		frameTiles[0] = -1;
+		frameNext[0] = 0;
+		while (depth > 0) {
+			int top = depth - 1;
+			int kept = frameNodes[top];
+			int node = original[kept];
+			int childMask = trie.get(node * NODE_SIZE + MASK_FIELD) & ~TERMINAL;
+			if (adjacentLetters != null && frameTiles[top] >= 0) {
+				//the next tile must sit next to this one; for a "QU" tile this frame is the U's node, but the tile is the Q
+				childMask &= adjacentLetters[frameTiles[top]];
+			}
+			int letter = frameNext[top];
+			while (letter < ALPHABET_SIZE && ((childMask & (1 << letter)) == 0 || remaining[letter] == 0)) {
+				letter++;
+			}
+			if (letter == ALPHABET_SIZE) { //every letter tried, backtrack
+				if (frameTiles[top] >= 0) {
+					remaining[frameTiles[top]]++;
+				}
+				if (live[kept] && parents[kept] >= 0) {
+					live[parents[kept]] = true;
+					if (letters[kept] == 'U' && letters[parents[kept]] == 'Q' && parents[parents[kept]] >= 0) {
+						live[parents[parents[kept]]] = true; //the Q a "QU" tile hangs from has no frame of its own
+					}
+				}
+				depth--;
+				continue;
+			}
+			frameNext[top] = letter + 1;
+			int child = child(node, (char) ('A' + letter));
+			int parent = kept;
+			if (letter == 'Q' - 'A') {
+				int u = child(child, 'U');
+				if (u == NO_NODE) {
+					continue; //no word continues with QU, so none continues with this Q
+				}
+				if (keptCount + 2 > original.length) {
+					original = Arrays.copyOf(original, keptCount * 2);
+					parents = Arrays.copyOf(parents, keptCount * 2);
+					letters = Arrays.copyOf(letters, keptCount * 2);
+					words = Arrays.copyOf(words, keptCount * 2);
+					live = Arrays.copyOf(live, keptCount * 2);
+				}
+				original[keptCount] = child; //a Q on its own never ends a spellable word
+				parents[keptCount] = parent;
+				letters[keptCount] = 'Q';
+				words[keptCount] = false;
+				live[keptCount] = false;
+				parent = keptCount++;
+				child = u;
+			}
+			if (keptCount == original.length) {
+				original = Arrays.copyOf(original, keptCount * 2);
+				parents = Arrays.copyOf(parents, keptCount * 2);
+				letters = Arrays.copyOf(letters, keptCount * 2);
+				words = Arrays.copyOf(words, keptCount * 2);
+				live = Arrays.copyOf(live, keptCount * 2);
+			}
+			original[keptCount] = child;
+			parents[keptCount] = parent;
+			letters[keptCount] = letter == 'Q' - 'A' ? 'U' : (char) ('A' + letter);
+			words[keptCount] = isWord(child);
+			live[keptCount] = words[keptCount];
+			if (depth == frameNodes.length) {
+				frameNodes = Arrays.copyOf(frameNodes, depth * 2);
+				frameTiles = Arrays.copyOf(frameTiles, depth * 2);
+				frameNext = Arrays.copyOf(frameNext, depth * 2);
+			}
+			remaining[letter]--;
+			frameNodes[depth] = keptCount++;
+			frameTiles[depth] = letter;
+			frameNext[depth] = 0;
+			depth++;
+		}
+
+		//lay the live nodes out breadth first, as buildTrie() does; each node's
+		//children were kept in letter order, after it, so one pass lists them
+		int[] childStarts = new int[keptCount + 1];
+		for (int kept = 1; kept < keptCount; kept++) {
+			if (live[kept]) {
+				childStarts[parents[kept] + 1]++;
+			}
+		}
+		for (int kept = 0; kept < keptCount; kept++) {
+			childStarts[kept + 1] += childStarts[kept];
+		}
+		int[] children = new int[childStarts[keptCount]];
+		int[] filled = new int[keptCount];
+		for (int kept = 1; kept < keptCount; kept++) {
+			if (live[kept]) {
+				children[childStarts[parents[kept]] + filled[parents[kept]]++] = kept;
+			}
+		}
+		int[] order = new int[children.length + 1];
+		int ordered = 1;
+		order[0] = 0;
+		int[] flat = new int[order.length * NODE_SIZE];
+		for (int next = 0; next < ordered; next++) {
+			int kept = order[next];
+			int mask = words[kept] ? TERMINAL : 0;
+			flat[next * NODE_SIZE + FIRST_CHILD_FIELD] = ordered;
+			for (int i = childStarts[kept]; i < childStarts[kept + 1]; i++) {
+				mask |= 1 << (letters[children[i]] - 'A');
+				order[ordered++] = children[i];
+			}
+			flat[next * NODE_SIZE + MASK_FIELD] = mask;
+		}
+		return new BoggleDictionary(flat);
+	}
+
+	/** @return number of nodes in the trie; every node handle is below this */
+	public int getNodeCount()
+	{
+		return trie.limit() / NODE_SIZE;
 	}
 
 	/** Get an iterator that returns all the words in the dictionary, one at a
@@ -46,7 +554,73 @@ public class BoggleDictionary
 	 */
 	public Iterator<String> iterator() 
 	{
-		return dictionary.iterator();
+		return new WordIterator();
+	}
+
+	/** Lay out a prefix trie over words as a flat array of nodes. Nodes are
+	 * numbered breadth first, so the children of every node end up next to
+	 * each other and can be found from the first child's index alone.
+	 * Words containing anything other than the letters A..Z can never be
+	 * spelled on a board and are left out of the trie.
+	 * @param words the words to index
+	 * @return the flattened trie, root node at index 0
+	 */
+	private static int[] buildTrie( Collection<String> words)
+	{
+		TrieNode root = new TrieNode();
+		int nodeCount = 1;
+		for (String word : words) {
+			String letters = word.toUpperCase();
+			boolean spellable = true;
+			for (int i = 0; i < letters.length() && spellable; i++) {
+				char c = letters.charAt(i);
+				spellable = c >= 'A' && c <= 'Z';
+			}
+			if (!spellable) {
+				continue;
+			}
+			TrieNode node = root;
+			for (int i = 0; i < letters.length(); i++) {
+				int index = letters.charAt(i) - 'A';
+				if (node.children[index] == null) {
+					node.children[index] = new TrieNode();
+					nodeCount++;
+				}
+				node = node.children[index];
+			}
+			node.word = true;
+		}
+
+		int[] flat = new int[nodeCount * NODE_SIZE];
+		ArrayList<TrieNode> order = new ArrayList<TrieNode>(nodeCount);
+		order.add(root);
+		for (int next = 0; next < order.size(); next++) {
+			TrieNode node = order.get(next);
+			int mask = node.word ? TERMINAL : 0;
+			flat[next * NODE_SIZE + FIRST_CHILD_FIELD] = order.size();
+			for (int index = 0; index < ALPHABET_SIZE; index++) {
+				if (node.children[index] != null) {
+					mask |= 1 << index;
+					order.add(node.children[index]);
+				}
+			}
+			flat[next * NODE_SIZE + MASK_FIELD] = mask;
+		}
+		return flat;
+	}
+
+	/** @param nodes a flattened trie
+	 * @return number of nodes in the trie that end a word
+	 */
+	private static int countWords( IntBuffer nodes)
+	{
+		int count = 0;
+		for (int index = MASK_FIELD; index < nodes.limit(); index += NODE_SIZE) {
+			if ((nodes.get(index) & TERMINAL) != 0) {
+				count++;
+			}
+		}
+		return count;
 	}
 
 	/** 
@@ -85,4 +659,99 @@ public class BoggleDictionary
 			System.out.println( iter.next()); 
 	}
 
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLEDICTIONARY.TRIENODE
+	////////////////////////////////////////////////////////
+
+	/** Temporary linked trie node, only used while building the flat trie. */
+	private static class TrieNode {
+		private TrieNode[] children = new TrieNode[ALPHABET_SIZE];
+		private boolean word;
+	} //BoggleDictionary.TrieNode inner class
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLEDICTIONARY.WORDITERATOR
+	////////////////////////////////////////////////////////
+
+	/** Walks the trie depth first, returning words in alphabetical order. */
+	private class WordIterator implements Iterator<String> {
+		/** pending nodes, with the depth and letter that lead to each */
+		private int[] nodes = new int[ALPHABET_SIZE];
+		private int[] depths = new int[ALPHABET_SIZE];
+		private char[] letters = new char[ALPHABET_SIZE];
+		private int pending = 0;
+		/** letters of the path to the node most recently visited */
+		private char[] prefix = new char[16];
+		/** next word to return, or null once the trie is exhausted */
+		private String next;
+
+		public WordIterator() {
+			push(getRoot(), 0, ' ');
+			advance();
+		}
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public String next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			String word = next;
+			advance();
+			return word;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/** Visit nodes until one ends a word, leaving that word in next. */
+		private void advance() {
+			next = null;
+			while (next == null && pending > 0) {
+				pending--;
+				int node = nodes[pending];
+				int depth = depths[pending];
+				if (depth > 0) {
+					if (depth > prefix.length) {
+						char[] bigger = new char[prefix.length * 2];
+						System.arraycopy(prefix, 0, bigger, 0, prefix.length);
+						prefix = bigger;
+					}
+					prefix[depth - 1] = letters[pending];
+				}
+				//push children last letter first so they come back out in order
+				for (char letter = 'Z'; letter >= 'A'; letter--) {
+					int childNode = child(node, letter);
+					if (childNode != NO_NODE) {
+						push(childNode, depth + 1, letter);
+					}
+				}
+				if (isWord(node)) {
+					next = new String(prefix, 0, depth);
+				}
+			}
+		}
+
+		private void push(int node, int depth, char letter) {
+			if (pending == nodes.length) {
+				int[] biggerNodes = new int[pending * 2];
+				int[] biggerDepths = new int[pending * 2];
+				char[] biggerLetters = new char[pending * 2];
+				System.arraycopy(nodes, 0, biggerNodes, 0, pending);
+				System.arraycopy(depths, 0, biggerDepths, 0, pending);
+				System.arraycopy(letters, 0, biggerLetters, 0, pending);
+				nodes = biggerNodes;
+				depths = biggerDepths;
+				letters = biggerLetters;
+			}
+			nodes[pending] = node;
+			depths[pending] = depth;
+			letters[pending] = letter;
+			pending++;
+		}
+	} //BoggleDictionary.WordIterator inner class
+
 }
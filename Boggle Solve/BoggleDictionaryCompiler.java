@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Command line tool that compiles a dictionary into the binary format
+ * BoggleDictionary memory maps at startup. The input can be anything the
+ * BoggleDictionary(String) constructor accepts, such as a plain word list
+ * with one word per line or the original serialized dictionary.dat.
+ * 
+ * @author Stan Bessey
+ */
+public class BoggleDictionaryCompiler {
+
+	/**
+	 * Reads a dictionary and writes it back out in compiled form.
+	 * 
+	 * @param args
+	 * 		input dictionary file (required)<br>
+	 * 		output file for the compiled dictionary (required)
+	 * @throws Exception if the input cannot be read or the output cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length != 2){
+			throw new IllegalArgumentException("args must contain 2 fields: input dictionary and output filename, in that order.");
+		}
+
+		long start = System.nanoTime();
+		BoggleDictionary source = new BoggleDictionary(args[0]);
+		ArrayList<String> words = new ArrayList<String>(source.size());
+		Iterator<String> iter = source.iterator();
+		while(iter.hasNext()){
+			words.add(iter.next());
+		}
+
+		int written = BoggleDictionary.compile(words, args[1]);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		System.out.println("Compiled " + written + " words into " + args[1] + " in " + elapsed + " ms");
+	}
+}
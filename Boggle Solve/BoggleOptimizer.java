@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for high-scoring Boggle boards by simulated annealing. Each
+ * chain starts from a board rolled with BoggleDice and repeatedly either
+ * replaces one tile with a letter drawn from the standard dice or swaps two
+ * tiles, then re-solves the board. Better boards are always kept; worse
+ * ones are kept with probability exp(change / temperature), and the
+ * temperature cools geometrically over the time budget. A chain that has
+ * not beaten its best board for RESTART_AFTER evaluations starts again
+ * from a fresh roll.
+ *
+ * Every chain keeps one BoggleSolver for its whole run and only changes
+ * tiles on it, so an evaluation costs a search and nothing more. Chains
+ * run in parallel and each has its own Random, seeded from the run's seed.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleOptimizer {
+	/** temperature at the start of a run, in points */
+	private static final double START_TEMPERATURE = 10.0;
+	/** temperature at the end of a run, in points */
+	private static final double END_TEMPERATURE = 0.2;
+	/** evaluations without a new best board before a chain restarts */
+	private static final int RESTART_AFTER = 20000;
+	/** spreads chain numbers apart so chains get unrelated seeds */
+	private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+	private final BoggleDictionary dictionary;
+	private final int dimension;
+	private final BoggleScoring scoring;
+	/** every face of every standard die, so letters are drawn at their usual frequency */
+	private final String letterPool;
+
+	/**
+	 * @param dictionary words to search for, shared by every chain
+	 * @param dimension dimension N of the NxN boards to optimize
+	 * @param scoring points for each word
+	 */
+	public BoggleOptimizer(BoggleDictionary dictionary, int dimension, BoggleScoring scoring) {
+		this.dictionary = dictionary;
+		this.dimension = dimension;
+		this.scoring = scoring;
+		BoggleDice dice = new BoggleDice(1);
+		StringBuilder pool = new StringBuilder();
+		for (int die = 0; die < dice.getStandardDieCount(); die++) {
+			pool.append(dice.getDieFaces(die));
+		}
+		letterPool = pool.toString();
+	}
+
+	/**
+	 * Configures the optimizer according to command line options, runs it and prints the best board.
+	 *
+	 * @param args
+	 * 		time budget in seconds (required)<br>
+	 * 		boardDimension (optional, defaults to 4)<br>
+	 * 		number of chains (optional, defaults to one per processor)<br>
+	 * 		random seed (optional, defaults to the current time)<br>
+	 * 		dictionary file (optional, defaults to "dictionary.dat")
+	 * @throws Exception if the dictionary cannot be read or a chain fails
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1 || args.length > 5){
+			throw new IllegalArgumentException("args must contain 1 to 5 fields: seconds, boardsize, chain count, seed and dictionary file, in that order.");
+		}
+		double seconds = Double.parseDouble(args[0]);
+		int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int chains = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : System.currentTimeMillis();
+		String dictionaryFile = args.length > 4 ? args[4] : "dictionary.dat";
+
+		BoggleOptimizer optimizer = new BoggleOptimizer(BoggleDictionary.getShared(dictionaryFile), dimension, BoggleScoring.OFFICIAL);
+		long start = System.nanoTime();
+		ArrayList<Result> results = optimizer.optimize((long) (seconds * 1000), chains, seed);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		Result best = results.get(0);
+		long evaluations = 0;
+		for (Result result : results) {
+			evaluations += result.getEvaluations();
+			if (result.getScore() > best.getScore()) {
+				best = result;
+			}
+		}
+		System.out.print(best.getBoard());
+		System.out.println("score " + best.getScore() + ", seed " + seed
+				+ String.format(", %d evaluations in %.1f s, %.0f per second", evaluations, elapsed, evaluations / elapsed));
+	}
+
+	/**
+	 * Runs chains in parallel, one thread per chain, until the time budget is spent.
+	 *
+	 * @param millis time budget in milliseconds
+	 * @param chains number of independent chains
+	 * @param seed seed for the whole run
+	 * @return the best board found by each chain, in chain order
+	 * @throws InterruptedException if interrupted while waiting for the chains
+	 * @throws ExecutionException if a chain fails
+	 */
+	public ArrayList<Result> optimize(long millis, int chains, long seed) throws InterruptedException, ExecutionException {
+		final long deadline = System.nanoTime() + millis * 1000000;
+		final long budget = millis * 1000000;
+		ExecutorService workers = Executors.newFixedThreadPool(chains);
+		ArrayList<Future<Result>> running = new ArrayList<Future<Result>>();
+		ArrayList<Result> results = new ArrayList<Result>();
+		try {
+			for (int chain = 0; chain < chains; chain++) {
+				final Random rand = new Random(seed + chain * SEED_STRIDE);
+				running.add(workers.submit(new Callable<Result>() {
+					public Result call() {
+						return anneal(rand, deadline, budget);
+					}
+				}));
+			}
+			for (Future<Result> chain : running) {
+				results.add(chain.get());
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Runs one chain on the calling thread.
+	 *
+	 * @param rand source of every roll, mutation and acceptance decision
+	 * @param deadline System.nanoTime() at which to stop
+	 * @param budget total nanoseconds the chain was given, for the cooling schedule
+	 * @return the best board the chain found
+	 */
+	private Result anneal(Random rand, long deadline, long budget) {
+		int cellCount = dimension * dimension;
+		BoggleSolver solver = new BoggleSolver(roll(rand), dictionary);
+		ScoreSink scorer = new ScoreSink();
+		int score = evaluate(solver, scorer);
+		int bestScore = score;
+		BoggleBoard bestBoard = solver.getBoard();
+		long evaluations = 1;
+		long lastImprovement = 0;
+
+		long now;
+		while ((now = System.nanoTime()) < deadline) {
+			double progress = 1.0 - (double) (deadline - now) / budget;
+			double temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+
+			if (evaluations - lastImprovement > RESTART_AFTER) {
+				BoggleBoard fresh = roll(rand);
+				for (int cell = 0; cell < cellCount; cell++) {
+					solver.setTile(cell, fresh.charAt(cell / dimension, cell % dimension));
+				}
+				score = evaluate(solver, scorer);
+				evaluations++;
+				lastImprovement = evaluations;
+				if (score > bestScore) { //a fresh board can beat everything the chain has seen
+					bestScore = score;
+					bestBoard = solver.getBoard();
+				}
+				continue;
+			}
+
+			//mutate: either a new letter on one tile, or swap two tiles
+			int cell = rand.nextInt(cellCount);
+			int other = rand.nextInt(cellCount);
+			char oldLetter = solver.getTile(cell);
+			boolean swap = rand.nextBoolean() && other != cell;
+			if (swap) {
+				solver.setTile(cell, solver.getTile(other));
+				solver.setTile(other, oldLetter);
+			} else {
+				solver.setTile(cell, letterPool.charAt(rand.nextInt(letterPool.length())));
+			}
+
+			int newScore = evaluate(solver, scorer);
+			evaluations++;
+			int change = newScore - score;
+			if (change >= 0 || rand.nextDouble() < Math.exp(change / temperature)) {
+				score = newScore;
+				if (score > bestScore) {
+					bestScore = score;
+					bestBoard = solver.getBoard();
+					lastImprovement = evaluations;
+				}
+			} else if (swap) { //rejected, put the tiles back
+				solver.setTile(other, solver.getTile(cell));
+				solver.setTile(cell, oldLetter);
+			} else {
+				solver.setTile(cell, oldLetter);
+			}
+		}
+		return new Result(bestBoard, bestScore, evaluations);
+	}
+
+	/** @return total points for the solver's current board */
+	private int evaluate(BoggleSolver solver, ScoreSink scorer) {
+		scorer.total = 0;
+		solver.solve(scorer);
+		return scorer.total;
+	}
+
+	/** @return a board rolled with the standard dice */
+	private BoggleBoard roll(Random rand) {
+		BoggleDice dice = new BoggleDice(dimension * dimension, rand);
+		char[][] letters = new char[dimension][dimension];
+		for (int cell = 0; cell < dimension * dimension; cell++) {
+			letters[cell / dimension][cell % dimension] = dice.getLetter(cell);
+		}
+		return new BoggleBoard(letters, BoggleBoard.Topology.grid);
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLEOPTIMIZER.SCORESINK
+	////////////////////////////////////////////////////////
+
+	/** Adds up the points for every word it is given. */
+	private class ScoreSink implements WordSink {
+		private int total;
+
+		public void wordFound(BoggleWord word) {
+			total += scoring.score(word.getWord());
+		}
+	} //BoggleOptimizer.ScoreSink inner class
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLEOPTIMIZER.RESULT
+	////////////////////////////////////////////////////////
+
+	/** The best board one chain found. */
+	public static class Result {
+		private final BoggleBoard board;
+		private final int score;
+		private final long evaluations;
+
+		private Result(BoggleBoard board, int score, long evaluations) {
+			this.board = board;
+			this.score = score;
+			this.evaluations = evaluations;
+		}
+
+		/** @return the best board */
+		public BoggleBoard getBoard() {
+			return board;
+		}
+
+		/** @return total points for the best board */
+		public int getScore() {
+			return score;
+		}
+
+		/** @return number of boards the chain solved */
+		public long getEvaluations() {
+			return evaluations;
+		}
+	} //BoggleOptimizer.Result inner class
+} // class BoggleOptimizer
@@ -0,0 +1,165 @@
+import java.awt.Point;
+
+/**
+ * A mutable path through a Boggle board, built for searches that extend and
+ * retract one path millions of times. Unlike BoggleSearch.BoggleSearchState,
+ * which copies an NxN grid of Points for every step, a BogglePath keeps:
+ * <ul>
+ * <li>a bitmask of visited cells (a single long for boards up to 8x8,
+ * a long[] bitset for larger boards),</li>
+ * <li>the cell index (row * N + col) of each step,</li>
+ * <li>the dictionary trie node reached after each step, and</li>
+ * <li>a char buffer holding the letters spelled so far.</li>
+ * </ul>
+ * All of these are sized once for the board, so push() and pop() never
+ * allocate. getWord(), getCells() and getPath() build their results on
+ * demand, only for the paths a caller actually keeps.
+ *
+ * @author Stan Bessey
+ */
+public class BogglePath {
+	/** boards with at most this many cells track visited cells in a single long */
+	private static final int SMALL_BOARD_CELLS = 64;
+
+	private final int dimension;
+	/** visited cells, used when the board has at most 64 cells */
+	private long visited;
+	/** visited cells, used instead of visited when the board is larger than 8x8 */
+	private final long[] visitedBits;
+	/** cell index of each step in the path */
+	private final int[] cells;
+	/** dictionary trie node reached after each step */
+	private final int[] nodes;
+	/** length of the word after each step; a 'Q' tile adds two letters */
+	private final int[] wordLengths;
+	/** the letters spelled by the path, 'Q' tiles spelled as "QU" */
+	private final char[] letters;
+	/** number of cells in the path */
+	private int length;
+
+	/** @param dimension dimension N of the NxN board this path moves on */
+	public BogglePath(int dimension) {
+		this.dimension = dimension;
+		int cellCount = dimension * dimension;
+		visitedBits = cellCount > SMALL_BOARD_CELLS ? new long[(cellCount + 63) / 64] : null;
+		cells = new int[cellCount];
+		nodes = new int[cellCount];
+		wordLengths = new int[cellCount];
+		letters = new char[2 * cellCount]; //every tile could be a Q
+	}
+
+	/** Remove every step, leaving an empty path ready for reuse. */
+	public void clear() {
+		while (length > 0) {
+			pop();
+		}
+	}
+
+	/** Extend the path by one cell.
+	 * @param cell index (row * N + col) of an unvisited cell
+	 * @param tile letter on that cell, where 'Q' stands for "QU"
+	 * @param node dictionary trie node reached by the extended word
+	 */
+	public void push(int cell, char tile, int node) {
+		int wordLength = length == 0 ? 0 : wordLengths[length - 1];
+		letters[wordLength++] = tile;
+		if (tile == 'Q') {
+			letters[wordLength++] = 'U';
+		}
+		if (visitedBits == null) {
+			visited |= 1L << cell;
+		} else {
+			visitedBits[cell >>> 6] |= 1L << cell;
+		}
+		cells[length] = cell;
+		nodes[length] = node;
+		wordLengths[length] = wordLength;
+		length++;
+	}
+
+	/** Remove the last cell from the path. */
+	public void pop() {
+		length--;
+		int cell = cells[length];
+		if (visitedBits == null) {
+			visited &= ~(1L << cell);
+		} else {
+			visitedBits[cell >>> 6] &= ~(1L << cell);
+		}
+	}
+
+	/** @param cell index (row * N + col) of a cell
+	 * @return true if cell is already part of the path
+	 */
+	public boolean isVisited(int cell) {
+		if (visitedBits == null) {
+			return (visited & (1L << cell)) != 0;
+		}
+		return (visitedBits[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/** @return number of cells in the path */
+	public int length() {
+		return length;
+	}
+
+	/** @return cell index of the last step */
+	public int lastCell() {
+		return cells[length - 1];
+	}
+
+	/** @return dictionary trie node reached by the whole path */
+	public int lastNode() {
+		return nodes[length - 1];
+	}
+
+	/** @return number of letters spelled by the path */
+	public int wordLength() {
+		return length == 0 ? 0 : wordLengths[length - 1];
+	}
+
+	/** @return word (or gibberish) formed by this path */
+	public String getWord() {
+		return new String(letters, 0, wordLength());
+	}
+
+	/** @return copy of the cell indexes (row * N + col) along the path, in order */
+	public int[] getCells() {
+		int[] copy = new int[length];
+		System.arraycopy(cells, 0, copy, 0, length);
+		return copy;
+	}
+
+	/** @return the path in BoggleSearchState.getPath() form: an NxN grid where
+	 * each visited position holds its predecessor, and the first holds (-1, -1)
+	 */
+	public Point[][] getPath() {
+		return toPredecessorGrid(cells, length, dimension);
+	}
+
+	/** Build the NxN predecessor grid that BoggleSearchState.getPath() returns
+	 * from a sequence of cell indexes.
+	 * @param cells cell indexes (row * N + col) along a path
+	 * @param length number of cells to use from cells
+	 * @param dimension dimension N of the board
+	 * @return grid where each visited position holds its predecessor, and the first holds (-1, -1)
+	 */
+	public static Point[][] toPredecessorGrid(int[] cells, int length, int dimension) {
+		Point[][] grid = new Point[dimension][dimension];
+		Point previous = new Point(-1, -1);
+		for (int step = 0; step < length; step++) {
+			int row = cells[step] / dimension;
+			int col = cells[step] % dimension;
+			grid[row][col] = previous;
+			previous = new Point(row, col);
+		}
+		return grid;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return getWord();
+	}
+} // class BogglePath
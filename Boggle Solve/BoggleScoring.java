@@ -0,0 +1,73 @@
+/**
+ * A table of points awarded for a word by its length. Tables for other
+ * rules can be built from an array of points, or looked up by name with
+ * forName(); rules that depend on more than a word's length can extend
+ * this class and override score(String).
+ *
+ * @author Stan Bessey
+ */
+public class BoggleScoring {
+	/** official Boggle scoring: 1 point for 3 or 4 letters, 2 for 5, 3 for 6, 5 for 7 and 11 for 8 or more */
+	public static final BoggleScoring OFFICIAL = new BoggleScoring(new int[] {0, 0, 0, 1, 1, 2, 3, 5, 11});
+	/** Big Boggle (5x5) scoring: words need 4 letters, then 1 point for 4, 2 for 5, 3 for 6, 5 for 7 and 11 for 8 or more */
+	public static final BoggleScoring BIG_BOGGLE = new BoggleScoring(new int[] {0, 0, 0, 0, 1, 2, 3, 5, 11});
+	/** one point for every letter */
+	public static final BoggleScoring LETTERS = new BoggleScoring(new int[] {0, 1}) {
+		public int score(int length) {
+			return length;
+		}
+	};
+
+	/** points for a word of each length; the last entry also covers every longer word */
+	private final int[] pointsByLength;
+
+	/**
+	 * @param pointsByLength points for a word of each length, starting at length 0;
+	 * 		the last entry also covers every longer word; copied
+	 */
+	public BoggleScoring(int[] pointsByLength) {
+		if (pointsByLength.length == 0) {
+			throw new IllegalArgumentException("scoring table must not be empty");
+		}
+		this.pointsByLength = pointsByLength.clone();
+	}
+
+	/**
+	 * @param name "official", "big" or "letters" for one of the standard
+	 * 		tables, or points for each length from 0 up, separated by commas
+	 * @return the scoring table
+	 */
+	public static BoggleScoring forName(String name) {
+		if (name.equals("official")) {
+			return OFFICIAL;
+		} else if (name.equals("big")) {
+			return BIG_BOGGLE;
+		} else if (name.equals("letters")) {
+			return LETTERS;
+		}
+		String[] fields = name.split(",");
+		int[] points = new int[fields.length];
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				points[i] = Integer.parseInt(fields[i].trim());
+			}
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("scoring must be \"official\", \"big\", \"letters\" or points by length, such as 0,0,0,1,1,2,3,5,11");
+		}
+		return new BoggleScoring(points);
+	}
+
+	/** @param length number of letters in a word, counting "QU" as two
+	 * @return points for a word of that length
+	 */
+	public int score(int length) {
+		return pointsByLength[Math.min(length, pointsByLength.length - 1)];
+	}
+
+	/** @param word a found word
+	 * @return points for word
+	 */
+	public int score(String word) {
+		return score(word.length());
+	}
+} // class BoggleScoring
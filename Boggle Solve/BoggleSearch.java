@@ -1,9 +1,9 @@
 import java.awt.Dimension;
 import java.awt.Point;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -20,15 +20,31 @@ public class BoggleSearch {
 	private final int BOARD_DIMENSION; //can be initialized (once) in constructor
 
 	private BoggleBoard board;
-	private Storage<BoggleSearchState> stateStore; //storage container for all valid paths, regardless of returned words
-	private ArrayList<BoggleSearchState> foundWordPaths; //storage container for valid paths that return valid words
-	@SuppressWarnings("unused")
-	private long counter = 0; //tracking the number of states found for fun
+	private int[] neighborStarts; //board's neighbor table, fetched once per search (see BoggleBoard.getNeighborStarts())
+	private int[] neighborCells;
+	private final BoggleDictionary dictionary; //shared, read-only word list, also used as a prefix trie to prune dead-end paths
+	private Storage<BoggleSearchState> stateStore; //the frontier: paths waiting to be expanded, in the order the storage container gives them back
+	private BoggleWordList foundWordPaths; //the first path found for each word, packed as cell indexes rather than kept as states
+	private HashSet<String> foundWords = new HashSet<String>(); //the words in foundWordPaths, for constant time duplicate checks
+	private BoggleWordList dedupList; //the list foundWords holds the words of
+	private HashMap<String, Integer> pathCounts; //number of distinct paths spelling each word, or null when not counting
+	private final int[] wordCells; //cells of the path findWords() is keeping, copied into foundWordPaths
+	private SearchBudget budget = new SearchBudget(); //limits on each search's work, unlimited unless setBudget() is called
+	private final SearchMetrics metrics = new SearchMetrics(); //counts of the work done by the last search, states included
+	private SearchTrace trace; //receives every expanded state, or null (the default) for no tracing
 	private final int MINIMUM_WORD_LENGTH = 3;	
+	private static final int DEFAULT_TRACE_RATE = 1000; //most states a second the -v trace prints, unless -r says otherwise
 
-	private BoggleSearch(int boardSize){
+	/**
+	 * @param boardSize dimension N of the NxN boards this search will solve
+	 * @param dictionary words to search for; it is only read, so one dictionary
+	 * 		(see BoggleDictionary.getShared()) can serve any number of searches at once
+	 */
+	public BoggleSearch(int boardSize, BoggleDictionary dictionary){
 
 			BOARD_DIMENSION = boardSize;
+			this.dictionary = dictionary;
+			wordCells = new int[boardSize * boardSize];
 	}
 
 	/**
@@ -37,15 +53,24 @@ public class BoggleSearch {
 	 * 
 	 * @param args
 	 * 		boardDimension (positive integer required)<br>
-	 * 		one of "-s" for stack or "-q" for queue (required)<br>
+	 * 		one of "-s" to search depth first with a stack, "-q" breadth first with a queue,
+	 * 		"-S" or "-Q" for the same searches on an ArrayDeque,
+	 * 		"-p" to search best first with a priority queue, expanding the most promising prefixes first,
+	 * 		"-b" for the allocation-free bitboard search, "-P" for the bitboard search best first
+	 * 		on a priority queue of packed states (see BoggleSolver.solve(WordSink, IntStorage.DataStructure))
+	 * 		or "-f" for the bitboard search split across all processors with fork/join (required)<br>
 	 * 		one of "-c" for console output or "-g" for GUI display (required)<br>
-	 * 		filename containing a starting Boggle board configuration (required)
+	 * 		filename containing a starting Boggle board configuration (required)<br>
+	 * 		followed by any of these options, each with a number after it (optional):
+	 * 		"-t" time limit in milliseconds, "-n" maximum number of states, "-l" maximum word length
+	 * 		(budgets, not for "-f"), "-v" print one expanded state in every N, "-r" print at most
+	 * 		N states a second (tracing, only for the storage searches)
 	 * @throws Exception, FileNotFoundException, IllegalArgumentException
 	 */
 	public static void main(String[] args) throws IllegalArgumentException, FileNotFoundException, Exception {
 
-		if(args.length != 4){//args must be 4 values, no more or less
-			throw new IllegalArgumentException("args must contain 4 fields: boardsize, stack/queue, console/GUI, and filename of board, in that order.");
+		if(args.length < 4 || args.length % 2 != 0){//args must be 4 values, then options in pairs
+			throw new IllegalArgumentException("args must contain 4 fields: boardsize, stack/queue, console/GUI, and filename of board, in that order, then any options.");
 		}
 
 		//make sure that args[0] is an int
@@ -58,45 +83,136 @@ public class BoggleSearch {
 		}
 		
 		int boardDimension = Integer.parseInt(args[0]); //integer expected
-		String storageMethod = args[1]; //-q or -s expected
+		String storageMethod = args[1]; //-q, -s, -Q, -S, -p, -b, -P or -f expected
 		String outputMode = args[2]; //-c or -g expected
 		String boggleFile = args[3]; //filename of boggleboard expected
 
-		BoggleSearch mySearch = new BoggleSearch(boardDimension); //construct new BoggleSearch
+		long loadStart = System.nanoTime();
+		BoggleDictionary dictionary = BoggleDictionary.getShared("dictionary.dat");
+		long loadTime = System.nanoTime() - loadStart;
+		BoggleSearch mySearch = new BoggleSearch(boardDimension, dictionary); //construct new BoggleSearch
+
+		SearchBudget budget = new SearchBudget();
+		boolean budgeted = false;
+		int traceSample = 0; //0 for no trace
+		int traceRate = DEFAULT_TRACE_RATE;
+		for(int option = 4; option < args.length; option += 2){
+			long limit = Long.parseLong(args[option + 1]);
+			if(args[option].equals("-t")){
+				budget.setTimeLimit(limit);
+				budgeted = true;
+			} else if(args[option].equals("-n")){
+				budget.setMaxStates(limit);
+				budgeted = true;
+			} else if(args[option].equals("-l")){
+				budget.setMaxWordLength((int) Math.min(limit, Integer.MAX_VALUE));
+				budgeted = true;
+			} else if(args[option].equals("-v")){
+				traceSample = (int) limit;
+			} else if(args[option].equals("-r")){
+				traceRate = (int) limit;
+			} else{
+				throw new IllegalArgumentException("options must be \"-t\", \"-n\", \"-l\", \"-v\" or \"-r\"");
+			}
+		}
+		if(budgeted && storageMethod.equals("-f")){
+			throw new IllegalArgumentException("budget options cannot be used with \"-f\"");
+		}
+		if(traceSample > 0 && (storageMethod.equals("-b") || storageMethod.equals("-P") || storageMethod.equals("-f"))){
+			throw new IllegalArgumentException("trace options cannot be used with \"-b\", \"-P\" or \"-f\"");
+		}
+		mySearch.setBudget(budget);
+
+		//everything goes to the console through one buffer, flushed once the search is done
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+		if(traceSample > 0){
+			mySearch.setTrace(new SearchTrace(out, traceSample, traceRate));
+		}
 
 		mySearch.board =  new BoggleBoard(mySearch.BOARD_DIMENSION, boggleFile); //construct new boggleboard
 
-		//check that either a stack or queue is selected
+		//the storage container is the search's frontier, so it decides the search order; the bitboard search needs none
 		if(storageMethod.equals("-s")){
-			mySearch.stateStore = new Storage<BoggleSearchState>(Storage.DataStructure.stack);
+			mySearch.stateStore = mySearch.createStorage(Storage.DataStructure.stack);
 		} else if (storageMethod.equals("-q")){
-			mySearch.stateStore = new Storage<BoggleSearchState>(Storage.DataStructure.queue);
-		} else{
-			throw new IllegalArgumentException("args[1] must be \"-q\" or \"-s\"");
+			mySearch.stateStore = mySearch.createStorage(Storage.DataStructure.queue);
+		} else if (storageMethod.equals("-S")){
+			mySearch.stateStore = mySearch.createStorage(Storage.DataStructure.arrayStack);
+		} else if (storageMethod.equals("-Q")){
+			mySearch.stateStore = mySearch.createStorage(Storage.DataStructure.arrayQueue);
+		} else if (storageMethod.equals("-p")){
+			mySearch.stateStore = mySearch.createStorage(Storage.DataStructure.priority);
+		} else if (!storageMethod.equals("-b") && !storageMethod.equals("-P") && !storageMethod.equals("-f")){
+			throw new IllegalArgumentException("args[1] must be \"-q\", \"-s\", \"-Q\", \"-S\", \"-p\", \"-b\", \"-P\" or \"-f\"");
 		}
 
-		mySearch.foundWordPaths = new ArrayList<BoggleSearchState>();
+		mySearch.foundWordPaths = new BoggleWordList(mySearch.BOARD_DIMENSION);
 		
 		//All paths must be evaluated before we can display anything. User may think the computer has frozen,
-		//so it makes sense to show a small dialog that things are working as intended.		
-		JOptionPane.showMessageDialog(null, "BoggleBoard is compiling. This may take a while depending on board size.");
+		//so it makes sense to show a small dialog that things are working as intended.	Console mode may be
+		//running headless (see BoggleBatch), so only the GUI gets the dialog.
+		if(outputMode.equals("-g")){
+			JOptionPane.showMessageDialog(null, "BoggleBoard is compiling. This may take a while depending on board size.");
+		}
 		
-		mySearch.searchPaths(mySearch.stateStore);
+		SearchMetrics metrics = mySearch.metrics; //the bitboard searches keep their own
+		if(mySearch.stateStore != null){
+			mySearch.searchPaths(mySearch.stateStore);
+			if(mySearch.trace != null){
+				mySearch.trace.close();
+			}
+		} else if(storageMethod.equals("-b") || storageMethod.equals("-P")){
+			BoggleSolver solver = new BoggleSolver(mySearch.board, mySearch.dictionary);
+			solver.setBudget(budget);
+			final BoggleWordList found = mySearch.foundWordPaths;
+			WordSink sink = new WordSink(){
+				public void wordFound(BoggleWord word){
+					found.add(word);
+				}
+			};
+			if(storageMethod.equals("-P")){
+				solver.solve(sink, IntStorage.DataStructure.priority);
+			} else{
+				solver.solve(sink);
+			}
+			metrics = solver.getMetrics();
+		} else{
+			ParallelBoggleSolver solver = new ParallelBoggleSolver(mySearch.dictionary);
+			for(BoggleWord word : solver.solve(mySearch.board)){
+				mySearch.foundWordPaths.add(word);
+			}
+			solver.shutdown();
+		}
 
 		//sorts the output to make it easier to read
-		Collections.sort(mySearch.foundWordPaths, new Comparator<BoggleSearchState>(){
-			public int compare(BoggleSearchState first, BoggleSearchState second){
-				return first.getWord().compareTo(second.getWord());
-			}
-		});
+		long sortStart = System.nanoTime();
+		mySearch.foundWordPaths.sort();
+		long sortTime = System.nanoTime() - sortStart;
+
+		//the bitboard searches have already reported themselves; only add what happened around them
+		metrics.addTime(SearchMetrics.Phase.load, loadTime);
+		metrics.addTime(SearchMetrics.Phase.sort, sortTime);
+		if(mySearch.stateStore != null){
+			SearchMetricsRegistry.getDefault().record(metrics);
+		} else{
+			SearchMetricsRegistry.getDefault().addTime(SearchMetrics.Phase.load, loadTime);
+			SearchMetricsRegistry.getDefault().addTime(SearchMetrics.Phase.sort, sortTime);
+		}
 
 		//if console mode is chosen, print each word in the list
 		if(outputMode.equals("-c")){
-			for(BoggleSearchState b : mySearch.foundWordPaths){
-				System.out.println(b.getWord());
+			for(int i = 0; i < mySearch.foundWordPaths.size(); i++){
+				out.println(mySearch.foundWordPaths.getWord(i));
 			}
-			System.out.println("Total number of states: " +mySearch.counter);
+			if(!storageMethod.equals("-f")){ //the fork/join search doesn't keep metrics, so it has no count to give
+				out.println("Total number of states: " +metrics.getStatesExpanded());
+			}
+			if(budget.isExhausted()){
+				out.println("Search stopped early (" + budget.getLimitReached() + " limit reached), so some words may be missing");
+			}
+			out.flush();
 		} else if(outputMode.equals("-g")){ //if GUI mode is chose, open new BoggleBoardPanel GUI
+			out.flush(); //the trace, if any
 			JFrame frame = new JFrame("BoggleSearch");
 			frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 			frame.getContentPane().add(new BoggleSearchPanel(mySearch.board, mySearch.BOARD_DIMENSION, mySearch.foundWordPaths));
@@ -110,46 +226,228 @@ public class BoggleSearch {
 	}
 
 	/**
-	 * Makes the initial call to the recursive getAdjacentStates() method to find the valid paths
-	 * in the boggle board that begin with a given Point (i,j) in the boggle board.
+	 * Creates a storage container for this search's frontier. Priority storage makes the
+	 * search best first: of the paths waiting, the one whose word begins the most dictionary
+	 * words is expanded next, so the words most likely to be on the board come out early.
 	 * 
+	 * @param dataStructure the kind of storage container
+	 * @return an empty storage container
+	 */
+	public Storage<BoggleSearchState> createStorage(Storage.DataStructure dataStructure){
+		return new Storage<BoggleSearchState>(dataStructure, new Comparator<BoggleSearchState>(){
+			public int compare(BoggleSearchState first, BoggleSearchState second){
+				//more words below comes first
+				int firstCount = dictionary.countWordsBelow(first.prefixNode);
+				int secondCount = dictionary.countWordsBelow(second.prefixNode);
+				return firstCount > secondCount ? -1 : (firstCount == secondCount ? 0 : 1);
+			}
+		});
+	}
+
+	/**
+	 * Finds every word on a board with the storage container search, for callers
+	 * other than main(), such as benchmarks.
+	 * 
+	 * @param board the board to search; must be BOARD_DIMENSION x BOARD_DIMENSION
 	 * @param stateStore the storage container (either a stack or queue) used for storing valid paths
-	 * @throws Exception potentially thrown by calling BoggleDictionary() constructor 
+	 * @return the first path found for each word, in the order they were found
+	 */
+	public BoggleWordList search(BoggleBoard board, Storage<BoggleSearchState> stateStore){
+		this.board = board;
+		this.stateStore = stateStore;
+		foundWordPaths = new BoggleWordList(BOARD_DIMENSION);
+		foundWords.clear();
+		if(pathCounts != null){
+			pathCounts.clear();
+		}
+		searchPaths(stateStore);
+		SearchMetricsRegistry.getDefault().record(metrics);
+		return foundWordPaths;
+	}
+
+	/** @return counts of the work done by the last search */
+	public SearchMetrics getMetrics(){
+		return metrics;
+	}
+
+	/**
+	 * Limits the work done by the following searches. A search that runs out of budget
+	 * keeps the words found so far and stops; isComplete() then returns false.
+	 * 
+	 * @param budget the limits to apply
+	 */
+	public void setBudget(SearchBudget budget){
+		this.budget = budget;
+	}
+
+	/**
+	 * Traces the states expanded by the following searches. Without a trace (the default),
+	 * a search writes nothing while it runs.
+	 * 
+	 * @param trace receives every expanded state, or null to stop tracing
 	 */
-	public void searchPaths(Storage<BoggleSearchState> stateStore) throws Exception{
+	public void setTrace(SearchTrace trace){
+		this.trace = trace;
+	}
+
+	/** @return false if the last search ran out of budget, so foundWordPaths may be missing words */
+	public boolean isComplete(){
+		return !budget.isExhausted();
+	}
+
+	/**
+	 * Finds the valid paths in the boggle board, using stateStore as the frontier: the paths
+	 * waiting to be expanded. A path starting on each Point (i,j) of the board goes in first;
+	 * after that the storage container decides which path is expanded next, so a stack
+	 * searches depth first, a queue breadth first, and priority storage (see createStorage())
+	 * expands the most promising prefixes first. Expanding a path keeps its word if it spells
+	 * one, then stores each neighbor that extends it to the start of some dictionary word.
+	 * If the budget runs out, the paths still waiting are dropped and the words found so far kept.
+	 * 
+	 * @param stateStore the storage container holding the frontier; empty when the search ends
+	 */
+	public void searchPaths(Storage<BoggleSearchState> stateStore){
+		neighborStarts = board.getNeighborStarts();
+		neighborCells = board.getNeighborCells();
+		budget.start();
+		metrics.reset();
+		startDedup(foundWordPaths);
+		long start = System.nanoTime();
 		for (int i = 0; i < BOARD_DIMENSION; i++){
 			for(int j = 0; j < BOARD_DIMENSION; j++){
 				BoggleSearchState currentState = new BoggleSearchState(i,j);
-				currentState.getAdjacentStates(currentState, stateStore); //kickstarts the finding of each path for a given starting point
-				findWords(stateStore, new BoggleDictionary(), foundWordPaths); //finds words after completing every path for a given starting point
+				metrics.countPrefixCheck(currentState.isPrefix());
+				if (currentState.isPrefix() && currentState.getWord().length() <= budget.getMaxWordLength()){ //no word starts with this letter, nothing to find here
+					stateStore.store(currentState);
+				} else{
+					metrics.countPruned();
+				}
 			}
 		}
+		metrics.frontierSize(stateStore.size());
+		while(!stateStore.isEmpty()){
+			BoggleSearchState state = stateStore.retrieve(); //the next path the frontier gives back
+			if(!budget.spend()){ //stop, and let go of the paths still waiting
+				while(!stateStore.isEmpty()){
+					stateStore.retrieve();
+				}
+				break;
+			}
+			metrics.countState();
+			if(trace != null){
+				trace.state(state.getWord());
+			}
+			if(state.isWord() && state.getWord().length() >= MINIMUM_WORD_LENGTH){
+				long dedupStart = System.nanoTime();
+				keepWord(state, foundWordPaths);
+				metrics.addTime(SearchMetrics.Phase.dedup, System.nanoTime() - dedupStart);
+			}
+			state.getAdjacentStates(state, stateStore);
+			metrics.frontierSize(stateStore.size());
+		}
+		//keepWord() was timed as dedup; the rest was search
+		metrics.addTime(SearchMetrics.Phase.search, System.nanoTime() - start - metrics.getTime(SearchMetrics.Phase.dedup));
 	}
 	
+	/**
+	 * Rebuilds the BoggleSearchState for a word found on the board last searched,
+	 * for callers that need states rather than paths, such as benchmarks.
+	 * 
+	 * @param word a word found on this search's board
+	 * @return the state at the end of word's path
+	 */
+	BoggleSearchState toSearchState(BoggleWord word){
+		BoggleSearchState state = new BoggleSearchState(word.getCell(0) / BOARD_DIMENSION, word.getCell(0) % BOARD_DIMENSION);
+		for(int step = 1; step < word.length(); step++){
+			state = new BoggleSearchState(word.getCell(step) / BOARD_DIMENSION, word.getCell(step) % BOARD_DIMENSION, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Turns on (or off) counting how many distinct paths spell each word. The first path
+	 * found for a word is still the only one kept in foundWordPaths.
+	 * 
+	 * @param countPaths true to count paths during the following searches
+	 */
+	public void setCountPaths(boolean countPaths){
+		pathCounts = countPaths ? new HashMap<String, Integer>() : null;
+	}
+
+	/**
+	 * @param word a word found by the search
+	 * @return number of distinct paths that spell word, or 0 if it was not found or paths are not being counted
+	 */
+	public int getPathCount(String word){
+		Integer count = pathCounts == null ? null : pathCounts.get(word);
+		return count == null ? 0 : count;
+	}
+
 	/**
 	 * This method evaluates each state in our storage container to see if a given word is contained
-	 * in our dictionary. It also checks for duplicate words.
+	 * in our dictionary. It also checks for duplicate words, using a hash set of the words already
+	 * in foundWordPaths rather than comparing against every entry. Only the cells of each new
+	 * word's path are kept, so the states themselves can be let go.
 	 * 
 	 * @param stateStore the storage container (stack or queue) used for storing valid paths
 	 * @param dictionary dictionary object that contains a list of all potential valid words
-	 * @param foundWordPaths list for storing all states that contain a valid word
+	 * @param foundWordPaths list for storing the path of each valid word
 	 */
-	public void findWords(Storage<BoggleSearchState> stateStore, BoggleDictionary dictionary, ArrayList<BoggleSearchState> foundWordPaths){
+	public void findWords(Storage<BoggleSearchState> stateStore, BoggleDictionary dictionary, BoggleWordList foundWordPaths){
+		long start = System.nanoTime();
+		startDedup(foundWordPaths);
 		while(!stateStore.isEmpty()){
-			boolean duplicate = false;
 			BoggleSearchState testState = stateStore.retrieve(); //returns the next item on the stack/queue
-			for(BoggleSearchState b : foundWordPaths){
-				if(testState.getWord().equals(b.getWord())){ //tests to see if a given word is already in the foundWordPaths list
-					duplicate = true;
-				}
-			}
+			String word = testState.getWord();
 			//add to list if in the dictionary and is 3 or more letters and is not already in the list
-			if(dictionary.contains(testState.getWord()) && testState.getWord().length() >= MINIMUM_WORD_LENGTH && !duplicate){
-				foundWordPaths.add(testState);
+			if(word.length() < MINIMUM_WORD_LENGTH){
+				continue;
+			}
+			boolean inDictionary = dictionary.contains(word);
+			metrics.countLookup(inDictionary);
+			if(inDictionary){
+				keepWord(testState, foundWordPaths);
+			}
+		}
+		metrics.addTime(SearchMetrics.Phase.dedup, System.nanoTime() - start);
+	}
+
+	/**
+	 * Makes foundWords hold the words already in foundWordPaths, so keepWord() can check
+	 * new words against it. The set is kept from one call to the next while the list is the
+	 * same list, and nobody else has added to it.
+	 * 
+	 * @param foundWordPaths list the following words will be kept in
+	 */
+	private void startDedup(BoggleWordList foundWordPaths){
+		if(foundWordPaths != dedupList || foundWords.size() != foundWordPaths.size()){ //start over from the list's contents
+			dedupList = foundWordPaths;
+			foundWords.clear();
+			for(int i = 0; i < foundWordPaths.size(); i++){
+				foundWords.add(foundWordPaths.getWord(i));
 			}
 		}
 	}
 
+	/**
+	 * Keeps the path of a state spelling a dictionary word, if its word is not already in
+	 * foundWordPaths, and counts the path when paths are being counted.
+	 * 
+	 * @param state a path that spells a dictionary word
+	 * @param foundWordPaths list for storing the path of each valid word
+	 */
+	private void keepWord(BoggleSearchState state, BoggleWordList foundWordPaths){
+		String word = state.getWord();
+		if(foundWords.add(word)){
+			foundWordPaths.add(word, wordCells, state.getCells(wordCells));
+			metrics.countWord();
+		}
+		if(pathCounts != null){ //every state is a different path, so each one counts
+			Integer count = pathCounts.get(word);
+			pathCounts.put(word, count == null ? 1 : count + 1);
+		}
+	}
+
 
 	////////////////////////////////////////////////////////
 	// INNER CLASS: BOGGLESEARCHSTATE
@@ -174,6 +472,10 @@ public class BoggleSearch {
 		/** the character sequence formed by the path */
 		private String word;
 
+		/** dictionary trie node reached by word, or BoggleDictionary.NO_NODE if
+		 * no dictionary word starts with word */
+		private int prefixNode;
+
 		/** Initialize a search path
 		 * @param initialRow starting row coordinate for a search path
 		 * @param initialCol starting col coordinate for a search path
@@ -191,6 +493,7 @@ public class BoggleSearch {
 				} else {
 					word = Character.toString(board.charAt(initialRow, initialCol));
 				}
+				prefixNode = extendPrefix(dictionary.getRoot(), board.charAt(initialRow, initialCol));
 			} else {
 				throw new IllegalArgumentException();
 			}
@@ -219,34 +522,54 @@ public class BoggleSearch {
 				} else {
 					word = previousState.getWord() + Character.toString(board.charAt(newRow, newCol));
 				}
+				prefixNode = extendPrefix(previousState.prefixNode, board.charAt(newRow, newCol));
 			} else {
 				throw new IllegalArgumentException();
 			}
 		}
 
+		/** Follow the dictionary trie from node by the letters of one board tile.
+		 * @param node trie node for the path so far
+		 * @param tile letter on the board, where 'Q' stands for "QU"
+		 * @return trie node for the extended path, or BoggleDictionary.NO_NODE
+		 */
+		private int extendPrefix(int node, char tile) {
+			if (node != BoggleDictionary.NO_NODE) {
+				node = dictionary.child(node, tile);
+			}
+			if (tile == 'Q' && node != BoggleDictionary.NO_NODE) {
+				node = dictionary.child(node, 'U');
+			}
+			return node;
+		}
+
 		/**
-		 * Recursive method that checks a given state, and all potential surrounding states. Adds
-		 * the state to a storage container if the length of the returned word (be it gibberish or an
-		 * actual word) is over 3 letters.
-		 * @param currentState
+		 * Stores each state that extends currentState by one neighbor, for the search to
+		 * expand later in whatever order the storage container gives them back. Neighbors
+		 * already on the path, or that cannot lead to a dictionary word, are skipped, so
+		 * gibberish paths are never held in memory. Nothing here recurses: the storage
+		 * container is the search's only stack (or queue), so paths as long as the board
+		 * itself are followed without overflowing the thread's stack on big boards.
+		 * @param currentState the state being expanded
 		 * @param stateStore the storage container we are storing Boggle states in
 		 */
 		public void getAdjacentStates(BoggleSearchState currentState, Storage<BoggleSearchState> stateStore){
-			stateStore.store(currentState);//puts the current state into the storage container for evaluation later
-			counter++; //used for informational purposes only, I was just curious how many states were found depending on gridsize
-			System.out.println(currentState.getWord());
-			//looping from -1 to 1 for row and col will check all 8 surrounding tiles as valid paths
-			for (int rowDelta = -1; rowDelta <= 1; rowDelta++){
-				for (int colDelta = -1; colDelta <= 1; colDelta++){
-					int potentialRow = currentState.getRow() + rowDelta;//row value for next possible state
-					int potentialCol = currentState.getCol() + colDelta;//column value for next possible state
-					if(currentState.validNeighbor(potentialRow, potentialCol)){
-						BoggleSearchState potentialState = new BoggleSearchState(potentialRow, potentialCol, currentState);
-						//make recursive call if the potentialState is inbounds
-						if (potentialState.inBounds()){
-							this.getAdjacentStates(potentialState, stateStore);
-						}
-					}	
+			//the board's neighbor table lists every tile adjacent to this one, whatever the topology
+			int cell = currentState.getRow() * BOARD_DIMENSION + currentState.getCol();
+			for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++){
+				int potentialRow = neighborCells[i] / BOARD_DIMENSION;//row value for next possible state
+				int potentialCol = neighborCells[i] % BOARD_DIMENSION;//column value for next possible state
+				if(currentState.searchPath[potentialRow][potentialCol] == null){ //not already part of this path
+					BoggleSearchState potentialState = new BoggleSearchState(potentialRow, potentialCol, currentState);
+					metrics.countPrefixCheck(potentialState.isPrefix());
+					//keep the potentialState if it is still a word prefix no longer than the budget allows
+					if (potentialState.isPrefix() && potentialState.getWord().length() <= budget.getMaxWordLength()){
+						stateStore.store(potentialState);
+					} else{
+						metrics.countPruned();
+					}
+				} else{
+					metrics.countPruned();
 				}
 			}
 		}
@@ -261,23 +584,15 @@ public class BoggleSearch {
 			return valid;
 		}
 
-		/** Check if a potential next path step is valid
-		 * @param row row of potential next step
-		 * @param col col of potential next step
-		 * @return true if next step is adjacent and available
-		 */
-		public boolean validNeighbor(int row, int col) {
-			boolean isValid = true;
-			if (Math.abs(row - lastPoint.x) > 1 || Math.abs(col - lastPoint.y) > 1) {
-				isValid = false;
-			}
-			if (row < 0 || row >= searchPath.length || col < 0 || col >= searchPath[row].length
-					|| searchPath[row][col] != null) { //depending on short-circuiting
-				isValid = false;
-			}
-			return isValid;
+		/** @return true if some dictionary word starts with this path's word */
+		public boolean isPrefix() {
+			return prefixNode != BoggleDictionary.NO_NODE;
 		}
 
+		/** @return true if this path's word is in the dictionary */
+		public boolean isWord() {
+			return isPrefix() && dictionary.isWord(prefixNode);
+		}
 
 		/** @return word (or gibberish) formed by this search path */
 		public String getWord() {
@@ -295,6 +610,23 @@ public class BoggleSearch {
 			return copy;
 		}
 
+		/** @param cells receives the cell indexes (row * N + col) along the path, first to
+		 * last; must have room for the whole path
+		 * @return number of cells in the path
+		 */
+		public int getCells(int[] cells) {
+			//follow the predecessors back from the last position to the sentinel
+			int length = 0;
+			for (Point p = lastPoint; p.x >= 0; p = searchPath[p.x][p.y]) {
+				length++;
+			}
+			int step = length;
+			for (Point p = lastPoint; p.x >= 0; p = searchPath[p.x][p.y]) {
+				cells[--step] = p.x * BOARD_DIMENSION + p.y;
+			}
+			return length;
+		}
+
 		/** @return row of last position */
 		public int getRow() {
 			return lastPoint.x;
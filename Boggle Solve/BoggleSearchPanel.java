@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.Arrays;
 
 import javax.swing.*;
@@ -24,7 +23,7 @@ public class BoggleSearchPanel extends JPanel implements ListSelectionListener {
 	private JList<String> wordListPanel; //list of valid English words in the gameboard
 	private JScrollPane scrollPane;
 	private JButton[][] boggleButtons;
-	private ArrayList<BoggleSearch.BoggleSearchState> list; //list of all valid states w/ valid words
+	private BoggleWordList list; //list of all valid words, each with its path as cell indexes
 	private String[] words; //storage container for just the valid words in list
 	
 	/**
@@ -34,9 +33,10 @@ public class BoggleSearchPanel extends JPanel implements ListSelectionListener {
 	 * 
 	 * @param board The board that we will read characters from to build the left half of the GUI
 	 * @param boardSize The size of the BoggleBoard.
-	 * @param list The list containing valid BoggleSearchStates w/ valid words
+	 * @param list The list containing valid words and their paths. Words found by any
+	 * 		solver can be shown, by adding its BoggleWords to a BoggleWordList.
 	 */
-	public BoggleSearchPanel(BoggleBoard board, int boardSize, ArrayList<BoggleSearch.BoggleSearchState> list){
+	public BoggleSearchPanel(BoggleBoard board, int boardSize, BoggleWordList list){
 
 		this.list = list;
 		
@@ -81,15 +81,15 @@ public class BoggleSearchPanel extends JPanel implements ListSelectionListener {
 	
 	/**
 	 * Creates a new JScrollPane + JList to represent a list of all
-	 * @param list The list containing valid BoggleSearchStates w/ valid words
-	 * @param words Array containing just the words from each BoggleSearchState.
+	 * @param list The list containing valid words and their paths
+	 * @param words Array containing just the words from list.
 	 */
-	public void configureWordListPanel(ArrayList<BoggleSearch.BoggleSearchState> list, String[] words){
+	public void configureWordListPanel(BoggleWordList list, String[] words){
 		this.words = words;
 		words = new String[list.size()];
 		
 		for(int i = 0; i < list.size(); i++){
-			words[i] = list.get(i).getWord(); //creates an array of just the words contained in the list
+			words[i] = list.getWord(i); //creates an array of just the words contained in the list
 		}
 		
 		wordListPanel = new JList<String>(words);
@@ -117,29 +117,28 @@ public class BoggleSearchPanel extends JPanel implements ListSelectionListener {
 
 	
 	/**
-	 * Compares a user-selected word against each valid state until it finds the state
-	 * that is equal to the user-selected word. Each corresponding letter on the BoggleBoard
-	 * is highlighted by calling the getPath() function for the matching state.
+	 * Finds the user-selected word in the list. Each letter on the BoggleBoard along
+	 * the word's path is highlighted, reading the path's cells straight from the list.
 	 * 
 	 * @param selectedWord the word selected by the user in the wordListPanel
-	 * @param list the list of BoggleSearchStates w/ valid words
+	 * @param list the list of valid words and their paths
 	 */
-	public void highlightWord(String selectedWord, ArrayList<BoggleSearch.BoggleSearchState> list){
+	public void highlightWord(String selectedWord, BoggleWordList list){
 
-		for(BoggleSearch.BoggleSearchState state : list){
-			if(selectedWord.equals(state.getWord())){
-				for(int i = 0; i< state.getPath().length; i++){
-					for(int j = 0; j< state.getPath().length; j++){
-						//where points are placed in the state path directly relates to where the letter
-						//falls in the BoggleBoard. See README for a more detailed description.
-						if(state.getPath()[i][j] != null){
-							boggleButtons[i][j].setBackground(Color.GREEN); //highlight found words in green
-						}else{
-							boggleButtons[i][j].setBackground(Color.WHITE); //sets all points not in the path to white to "reset" the board
-						}
-					}
-				}
+		int index = list.indexOf(selectedWord);
+		if(index < 0){
+			return;
+		}
+		int boardSize = boggleButtons.length;
+		for(int i = 0; i < boardSize; i++){
+			for(int j = 0; j < boardSize; j++){
+				boggleButtons[i][j].setBackground(Color.WHITE); //sets all points not in the path to white to "reset" the board
 			}
 		}
+		for(int step = 0; step < list.length(index); step++){
+			//each cell index is row * boardSize + col, the letter's position in the BoggleBoard
+			int cell = list.getCell(index, step);
+			boggleButtons[cell / boardSize][cell % boardSize].setBackground(Color.GREEN); //highlight found words in green
+		}
 	}
 }
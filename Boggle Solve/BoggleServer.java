@@ -0,0 +1,388 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves boards sent over a local TCP socket, for a game backend that
+ * needs word lists without starting a JVM and loading a dictionary per
+ * board. The server listens on the loopback address only.
+ *
+ * A client sends a board as N lines of N tiles, in the same format
+ * BoggleBoard and BoggleBatch read; blank lines between boards are
+ * ignored. For each board the server answers with one line:
+ * <pre>
+ * wordCount	WORD WORD WORD ...
+ * BUSY
+ * ERROR message
+ * </pre>
+ * with the words in alphabetical order. BUSY means the server had too
+ * many boards waiting and did not solve this one; the client should wait
+ * a little and send it again (see BoggleClient). A connection the server
+ * has no room for gets "BUSY connection" in answer to its first board, and
+ * is closed. After an ERROR the server closes the connection too. A
+ * connection can send any number of boards, one at a time.
+ *
+ * Connections are read by their own threads, which put each board on one
+ * bounded queue. The solving threads all share one warm dictionary. Each
+ * takes a batch of the boards waiting on the queue, its fair share of them
+ * and at most MAX_BATCH, and solves them back to back with one solver it
+ * keeps from board to board, so under load a worker wakes once per batch
+ * rather than once per board and reuses the scratch space its solver has
+ * already grown, while boards are still spread over every worker. When the
+ * queue is full new boards get BUSY straight away instead of waiting, and
+ * past MAX_CONNECTIONS new connections get BUSY and are closed, so an
+ * overloaded server answers quickly rather than building an unbounded
+ * backlog.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleServer {
+	/** answer to a connection the server has no room for, which is then closed */
+	public static final String CONNECTION_BUSY = "BUSY connection";
+	/** port used when none is given */
+	public static final int DEFAULT_PORT = 4848;
+	/** most boards one worker takes from the queue at a time */
+	private static final int MAX_BATCH = 16;
+	/** boards waiting to be solved per worker thread before new ones get BUSY */
+	private static final int QUEUED_BOARDS_PER_THREAD = 64;
+	/** most connections open at once */
+	private static final int MAX_CONNECTIONS = 256;
+	/** a connection that sends nothing for this long is closed */
+	private static final int IDLE_TIMEOUT_MS = 60000;
+	/** wait after a failed accept; doubled after each failure in a row, up to MAX_ACCEPT_BACKOFF_MS */
+	private static final int FIRST_ACCEPT_BACKOFF_MS = 10;
+	private static final int MAX_ACCEPT_BACKOFF_MS = 1000;
+
+	private final BoggleDictionary dictionary;
+	private final BoggleBoard.Topology topology;
+	private final ServerSocket serverSocket;
+	/** boards waiting for a worker */
+	private final ArrayBlockingQueue<Request> queue;
+	private final Thread[] workers;
+	/** threads reading connections, at most MAX_CONNECTIONS */
+	private final ThreadPoolExecutor connections;
+	/** answers boards seen recently, or null to solve every board */
+	private volatile BoggleSolutionCache cache;
+	private volatile boolean running = false;
+
+	private final AtomicLong boardsSolved = new AtomicLong();
+	private final AtomicLong batchesSolved = new AtomicLong();
+	private final AtomicLong boardsRejected = new AtomicLong();
+	private final AtomicLong connectionsRejected = new AtomicLong();
+
+	/**
+	 * Opens the server socket. Nothing is accepted until start() is called.
+	 * @param dictionary words to search for, shared by every worker
+	 * @param topology how the cells of every board are connected
+	 * @param port port to listen on, or 0 for any free port
+	 * @param threads number of worker threads
+	 * @throws IOException if the port cannot be opened
+	 */
+	public BoggleServer(BoggleDictionary dictionary, BoggleBoard.Topology topology, int port, int threads) throws IOException {
+		this.dictionary = dictionary;
+		this.topology = topology;
+		serverSocket = new ServerSocket(port, MAX_CONNECTIONS, InetAddress.getLoopbackAddress());
+		queue = new ArrayBlockingQueue<Request>(threads * QUEUED_BOARDS_PER_THREAD);
+		workers = new Thread[threads];
+		connections = new ThreadPoolExecutor(0, MAX_CONNECTIONS, IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS,
+				new SynchronousQueue<Runnable>());
+	}
+
+	/**
+	 * Starts a server and runs until the process is stopped.
+	 *
+	 * @param args
+	 * 		port (optional, defaults to DEFAULT_PORT)<br>
+	 * 		number of worker threads (optional, defaults to one per processor)<br>
+	 * 		dictionary file (optional, defaults to "dictionary.dat")<br>
+	 * 		one of "grid", "torus" or "hex" (optional, defaults to "grid")<br>
+	 * 		number of solved boards to cache (optional, defaults to 0, no cache)
+	 * @throws Exception if the dictionary cannot be read or the port cannot be opened
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length > 5){
+			throw new IllegalArgumentException("args must contain 0 to 5 fields: port, thread count, dictionary file, topology and cache size, in that order.");
+		}
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		String dictionaryFile = args.length > 2 ? args[2] : "dictionary.dat";
+		BoggleBoard.Topology topology = args.length > 3 ? BoggleBoard.Topology.valueOf(args[3]) : BoggleBoard.Topology.grid;
+
+		int cacheSize = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+		BoggleDictionary dictionary = BoggleDictionary.getShared(dictionaryFile);
+		final BoggleServer server = new BoggleServer(dictionary, topology, port, threads);
+		if (cacheSize > 0) {
+			server.setCache(new BoggleSolutionCache(dictionary, cacheSize));
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				server.stop();
+				System.err.println(server.report());
+			}
+		});
+		server.start();
+		System.err.println("listening on " + server.serverSocket.getLocalSocketAddress() + " with " + threads + " workers");
+	}
+
+	/** Starts the workers and begins accepting connections. */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					work();
+				}
+			}, "boggle-worker-" + i);
+			workers[i].start();
+		}
+		Thread acceptor = new Thread(new Runnable() {
+			public void run() {
+				accept();
+			}
+		}, "boggle-acceptor");
+		acceptor.start();
+	}
+
+	/** Stops accepting connections and stops the workers. Boards still waiting get ERROR. */
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (IOException ioe) {
+			//closing anyway
+		}
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		connections.shutdownNow();
+		Request request;
+		while ((request = queue.poll()) != null) {
+			request.finish("ERROR server stopped\n");
+		}
+	}
+
+	/** @param cache answers boards, or rotations or reflections of boards,
+	 * solved recently; null to solve every board
+	 */
+	public void setCache(BoggleSolutionCache cache) {
+		this.cache = cache;
+	}
+
+	/** @return port the server listens on */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/** @return boards solved and batch size, boards and connections turned away, and cache use */
+	public String report() {
+		long boards = boardsSolved.get();
+		long batches = batchesSolved.get();
+		String report = String.format("boards: %d solved in %d batches (%.1f per batch), %d busy, %d connections turned away",
+				boards, batches, batches == 0 ? 0.0 : (double) boards / batches, boardsRejected.get(), connectionsRejected.get());
+		BoggleSolutionCache cache = this.cache;
+		return cache == null ? report : report + String.format("%n") + cache;
+	}
+
+	/**
+	 * Hand each new connection to a connection thread until the server
+	 * socket is closed. An accept that fails while the server is running,
+	 * for instance because the process is out of file descriptors, is
+	 * retried after a wait that doubles with each failure in a row, so a
+	 * failure that persists does not keep a processor spinning.
+	 */
+	private void accept() {
+		int backoff = FIRST_ACCEPT_BACKOFF_MS;
+		while (running) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+				backoff = FIRST_ACCEPT_BACKOFF_MS;
+			} catch (IOException ioe) {
+				if (!running) {
+					return; //closed by stop()
+				}
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					return;
+				}
+				backoff = Math.min(backoff * 2, MAX_ACCEPT_BACKOFF_MS);
+				continue;
+			}
+			try {
+				connections.execute(new Runnable() {
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (RejectedExecutionException ree) {
+				connectionsRejected.incrementAndGet();
+				try {
+					socket.getOutputStream().write((CONNECTION_BUSY + "\n").getBytes("US-ASCII"));
+					socket.close();
+				} catch (IOException ioe) {
+					//the client gave up already
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads boards from one connection and answers each, until the client
+	 * closes it, it sits idle too long or a board cannot be read.
+	 * @param socket the connection
+	 */
+	private void serve(Socket socket) {
+		try {
+			socket.setSoTimeout(IDLE_TIMEOUT_MS);
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "US-ASCII"));
+			while (running) {
+				char[][] letters;
+				try {
+					letters = BoggleBatch.readBoard(in);
+				} catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+					out.write("ERROR every board must be N rows of N tiles\n");
+					out.flush();
+					return;
+				}
+				if (letters == null) {
+					return;
+				}
+				Request request = new Request(new BoggleBoard(letters, topology));
+				if (queue.offer(request)) {
+					out.write(request.await());
+				} else {
+					boardsRejected.incrementAndGet();
+					out.write("BUSY\n");
+				}
+				out.flush();
+			}
+		} catch (SocketTimeoutException | SocketException e) {
+			//idle, or closed by the client or by stop()
+		} catch (IOException ioe) {
+			//nothing more can be said on this connection
+		} catch (InterruptedException ie) {
+			//stopped
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException ioe) {
+				//closed already
+			}
+		}
+	}
+
+	/**
+	 * Solve waiting boards in batches until stopped. A worker takes no more
+	 * than its share of the boards waiting, so boards queued together are
+	 * still solved side by side by the other workers rather than one after
+	 * another by the first worker to wake.
+	 */
+	private void work() {
+		ArrayList<Request> batch = new ArrayList<Request>(MAX_BATCH);
+		BoggleSolver solver = null;
+		while (running) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException ie) {
+				return;
+			}
+			queue.drainTo(batch, Math.min(MAX_BATCH - 1, queue.size() / workers.length));
+			for (Request request : batch) {
+				solver = request.solve(solver);
+			}
+			boardsSolved.addAndGet(batch.size());
+			batchesSolved.incrementAndGet();
+			batch.clear();
+		}
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLESERVER.REQUEST
+	////////////////////////////////////////////////////////
+
+	/** One board waiting to be solved, and the connection thread waiting for its answer. */
+	private class Request {
+		private final BoggleBoard board;
+		private final CountDownLatch done = new CountDownLatch(1);
+		/** the answer line, once done */
+		private String reply;
+
+		public Request(BoggleBoard board) {
+			this.board = board;
+		}
+
+		/**
+		 * Solve the board and hand the answer to the waiting connection.
+		 * @param solver the worker's solver, switched to this board if it can be, or null
+		 * @return the solver to keep for the worker's next board
+		 */
+		public BoggleSolver solve(BoggleSolver solver) {
+			try {
+				ArrayList<String> words = new ArrayList<String>();
+				if (solver == null || !solver.setBoard(board)) {
+					solver = new BoggleSolver(board, dictionary);
+				}
+				BoggleSolutionCache cache = BoggleServer.this.cache;
+				ArrayList<BoggleWord> found = cache != null ? cache.solve(board, solver) : solver.solve();
+				for (BoggleWord word : found) {
+					words.add(word.getWord());
+				}
+				Collections.sort(words);
+				StringBuilder line = new StringBuilder();
+				line.append(words.size()).append('\t');
+				for (int i = 0; i < words.size(); i++) {
+					if (i > 0) {
+						line.append(' ');
+					}
+					line.append(words.get(i));
+				}
+				line.append('\n');
+				finish(line.toString());
+			} catch (RuntimeException re) {
+				finish("ERROR " + re + "\n");
+			}
+			return solver;
+		}
+
+		/** @param reply the answer line, ending in a newline */
+		public void finish(String reply) {
+			this.reply = reply;
+			done.countDown();
+		}
+
+		/** @return the answer line, once a worker has solved the board
+		 * @throws InterruptedException if the server is stopped while waiting
+		 */
+		public String await() throws InterruptedException {
+			done.await();
+			return reply;
+		}
+	} //BoggleServer.Request inner class
+} // class BoggleServer
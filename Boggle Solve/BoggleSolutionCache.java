@@ -0,0 +1,308 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the words on recently solved boards, so a board that has been
+ * solved before, or any rotation or reflection of one, is answered without
+ * searching it again.
+ *
+ * Turning or flipping a square board moves its cells but keeps every pair
+ * of neighbors neighbors, so the same words are on it, along the moved
+ * paths. The cache tries each of the 8 symmetries of the square on a board
+ * and keys it by whichever transformed board reads first in alphabetical
+ * order, its canonical form. Only symmetries that keep the board's
+ * topology are tried: all 8 for grid and torus boards, but only 4 for hex
+ * boards, whose diagonals run one way. The cache solves and stores the
+ * canonical board; the paths it returns are mapped back through the
+ * inverse of the symmetry that took the board to its canonical form.
+ *
+ * A board gets the same words whichever way it is turned, but each word's
+ * path and the order of the words are those found on the canonical board,
+ * so they can differ from what BoggleSolver.solve() finds on the board as
+ * given.
+ *
+ * The cache holds at most a fixed number of boards, dropping the least
+ * recently used first. It is thread safe; boards are solved outside its
+ * lock, so a board asked for by two threads at once may be solved twice.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleSolutionCache {
+	/** the symmetries of the square, as the cell (row, col) each one moves cell (row, col) to */
+	public static enum Symmetry {
+		identity, rotate90, rotate180, rotate270, flipRows, flipCols, transpose, antitranspose;
+
+		/**
+		 * @param row a cell's row
+		 * @param col a cell's column
+		 * @param dimension dimension N of the board
+		 * @return cell index (row * N + col) the cell moves to
+		 */
+		public int apply(int row, int col, int dimension) {
+			int last = dimension - 1;
+			switch (this) {
+			case rotate90:
+				return col * dimension + (last - row);
+			case rotate180:
+				return (last - row) * dimension + (last - col);
+			case rotate270:
+				return (last - col) * dimension + row;
+			case flipRows:
+				return (last - row) * dimension + col;
+			case flipCols:
+				return row * dimension + (last - col);
+			case transpose:
+				return col * dimension + row;
+			case antitranspose:
+				return (last - col) * dimension + (last - row);
+			default:
+				return row * dimension + col;
+			}
+		}
+	}
+
+	private final BoggleDictionary dictionary;
+	private final int capacity;
+	/** canonical solutions by canonical key, least recently used first */
+	private final LinkedHashMap<String, Solution> solutions;
+	/** for each topology and dimension seen, where each symmetry that keeps
+	 * the topology moves every cell: moves[s][cell] */
+	private final HashMap<String, int[][]> symmetries = new HashMap<String, int[][]>();
+
+	private long hits;
+	/** hits on a rotation or reflection of the board that was solved, rather than the same board */
+	private long symmetricHits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param dictionary words to search for
+	 * @param capacity most boards to remember
+	 */
+	public BoggleSolutionCache(BoggleDictionary dictionary, final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.dictionary = dictionary;
+		this.capacity = capacity;
+		solutions = new LinkedHashMap<String, Solution>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Solution> eldest) {
+				if (size() > capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Finds every word on the board, from the cache if the board or a
+	 * rotation or reflection of it was solved recently.
+	 * @param board the board to solve
+	 * @return the words on the board, each with a path on board as given
+	 */
+	public ArrayList<BoggleWord> solve(BoggleBoard board) {
+		return solve(board, null);
+	}
+
+	/**
+	 * Finds every word on the board, from the cache if the board or a
+	 * rotation or reflection of it was solved recently, searching with the
+	 * caller's solver otherwise.
+	 * @param board the board to solve
+	 * @param solver switched to the canonical board (see BoggleSolver.setBoard())
+	 * 		to search it on a miss, or null, or a solver for a board of another
+	 * 		size or topology, to search with a new solver
+	 * @return the words on the board, each with a path on board as given
+	 */
+	public ArrayList<BoggleWord> solve(BoggleBoard board, BoggleSolver solver) {
+		int dimension = board.getDimension();
+		char[][] letters = board.getBoard();
+		int[][] moves = symmetriesOf(board.getTopology(), dimension);
+
+		//the canonical form is the transformed board whose letters, read row by row, come first
+		int best = 0;
+		char[] bestTiles = transform(letters, moves[0]);
+		for (int s = 1; s < moves.length; s++) {
+			char[] tiles = transform(letters, moves[s]);
+			if (compare(tiles, bestTiles) < 0) {
+				best = s;
+				bestTiles = tiles;
+			}
+		}
+		String key = board.getTopology() + ":" + new String(bestTiles);
+
+		ArrayList<BoggleWord> canonical = null;
+		synchronized (this) {
+			Solution cached = solutions.get(key);
+			if (cached != null) {
+				canonical = cached.words;
+				hits++;
+				if (cached.symmetry != best) { //the same symmetry would only take the same board there
+					symmetricHits++;
+				}
+			} else {
+				misses++;
+			}
+		}
+		if (canonical == null) {
+			char[][] canonicalLetters = new char[dimension][dimension];
+			for (int cell = 0; cell < bestTiles.length; cell++) {
+				canonicalLetters[cell / dimension][cell % dimension] = bestTiles[cell];
+			}
+			BoggleBoard canonicalBoard = new BoggleBoard(canonicalLetters, board.getTopology());
+			if (solver == null || !solver.setBoard(canonicalBoard)) {
+				solver = new BoggleSolver(canonicalBoard, dictionary);
+			}
+			canonical = solver.solve();
+			synchronized (this) {
+				solutions.put(key, new Solution(canonical, best));
+			}
+		}
+		if (best == 0) {
+			return new ArrayList<BoggleWord>(canonical);
+		}
+
+		//move every path back: the board's cell c is the canonical board's cell moves[best][c]
+		int[] inverse = new int[moves[best].length];
+		for (int cell = 0; cell < inverse.length; cell++) {
+			inverse[moves[best][cell]] = cell;
+		}
+		ArrayList<BoggleWord> words = new ArrayList<BoggleWord>(canonical.size());
+		for (BoggleWord word : canonical) {
+			int[] cells = new int[word.length()];
+			for (int step = 0; step < cells.length; step++) {
+				cells[step] = inverse[word.getCell(step)];
+			}
+			words.add(new BoggleWord(word.getWord(), cells, dimension));
+		}
+		return words;
+	}
+
+	/** @return number of solves answered from the cache */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/** @return number of hits where the board was a rotation or reflection of the one solved */
+	public synchronized long getSymmetricHits() {
+		return symmetricHits;
+	}
+
+	/** @return number of solves that had to search the board */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/** @return number of boards dropped to make room */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/** @return fraction of solves answered from the cache, 0 if there have been none */
+	public synchronized double getHitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	/** @return number of boards currently cached */
+	public synchronized int size() {
+		return solutions.size();
+	}
+
+	/** Forgets every cached board and sets the counts back to zero. */
+	public synchronized void clear() {
+		solutions.clear();
+		hits = 0;
+		symmetricHits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	public synchronized String toString() {
+		return String.format("cache: %d of %d boards, %d hits (%d turned or flipped), %d misses, %.1f%% hit rate, %d evicted",
+				solutions.size(), capacity, hits, symmetricHits, misses, 100 * getHitRate(), evictions);
+	}
+
+	/**
+	 * Finds the symmetries that keep every pair of neighbors neighbors on
+	 * boards of this topology and dimension, once per topology and dimension.
+	 * @param topology how cells are connected
+	 * @param dimension dimension N of the board
+	 * @return moves[s][cell], the cell each kept symmetry moves each cell to; identity first
+	 */
+	private synchronized int[][] symmetriesOf(BoggleBoard.Topology topology, int dimension) {
+		String key = topology + ":" + dimension;
+		int[][] moves = symmetries.get(key);
+		if (moves != null) {
+			return moves;
+		}
+		char[][] open = new char[dimension][dimension];
+		for (char[] row : open) {
+			Arrays.fill(row, 'A');
+		}
+		BoggleBoard board = new BoggleBoard(open, topology);
+		ArrayList<int[]> kept = new ArrayList<int[]>();
+		for (Symmetry symmetry : Symmetry.values()) {
+			int[] move = new int[dimension * dimension];
+			for (int cell = 0; cell < move.length; cell++) {
+				move[cell] = symmetry.apply(cell / dimension, cell % dimension, dimension);
+			}
+			boolean keepsNeighbors = true;
+			for (int cell = 0; cell < move.length && keepsNeighbors; cell++) {
+				for (int other = 0; other < move.length && keepsNeighbors; other++) {
+					keepsNeighbors = board.isNeighbor(cell, other) == board.isNeighbor(move[cell], move[other]);
+				}
+			}
+			if (keepsNeighbors) {
+				kept.add(move);
+			}
+		}
+		moves = kept.toArray(new int[kept.size()][]);
+		symmetries.put(key, moves);
+		return moves;
+	}
+
+	/** @param letters the board's tiles
+	 * @param move the cell each cell moves to
+	 * @return the moved tiles, by cell index
+	 */
+	private static char[] transform(char[][] letters, int[] move) {
+		int dimension = letters.length;
+		char[] tiles = new char[move.length];
+		for (int cell = 0; cell < move.length; cell++) {
+			tiles[move[cell]] = letters[cell / dimension][cell % dimension];
+		}
+		return tiles;
+	}
+
+	/** @return negative, zero or positive as first reads before, the same as or after second */
+	private static int compare(char[] first, char[] second) {
+		for (int i = 0; i < first.length; i++) {
+			if (first[i] != second[i]) {
+				return first[i] - second[i];
+			}
+		}
+		return 0;
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLESOLUTIONCACHE.SOLUTION
+	////////////////////////////////////////////////////////
+
+	/** The words on a canonical board, and which of the kept symmetries took the solved board there. */
+	private static class Solution {
+		private final ArrayList<BoggleWord> words;
+		private final int symmetry;
+
+		public Solution(ArrayList<BoggleWord> words, int symmetry) {
+			this.words = words;
+			this.symmetry = symmetry;
+		}
+	} //BoggleSolutionCache.Solution inner class
+} // class BoggleSolutionCache
@@ -0,0 +1,599 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Finds every dictionary word on a BoggleBoard using a single reusable
+ * BogglePath, so that extending the search by one cell allocates nothing.
+ * Paths are only followed while they spell the start of a dictionary word.
+ * Objects are only created for the words that are actually found, and each
+ * word is handed to a WordSink the moment it is found, so memory use grows
+ * with the number of distinct words rather than the number of paths.
+ *
+ * A solver holds the scratch state for one board at a time (see
+ * setBoard()) and is not thread safe; give each thread its own solver.
+ * The dictionary can be shared.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleSolver {
+	/** shortest word that counts */
+	public static final int MINIMUM_WORD_LENGTH = 3;
+
+	private final BoggleDictionary dictionary;
+	private final int dimension;
+	private final BoggleBoard.Topology topology;
+	/** board letters by cell index (row * N + col) */
+	private final char[] tiles;
+	/** the board's neighbor table, see BoggleBoard.getNeighborStarts() */
+	private int[] neighborStarts;
+	private int[] neighborCells;
+	/** the path currently being extended */
+	private final BogglePath path;
+	/** trie nodes of words already found, so each word is reported once */
+	private final BitSet foundNodes = new BitSet();
+	/** the bits set in foundNodes, so they can be cleared without sweeping the whole BitSet */
+	private int[] foundNodeList = new int[64];
+	private int foundNodeCount = 0;
+	/** receives the words found by the current solve */
+	private WordSink sink;
+	/** search states of solve(WordSink, IntStorage.DataStructure), by state index:
+	 * the state's last cell, its trie node, and the index of the state it extends or -1 */
+	private int[] stateCells = new int[0];
+	private int[] stateNodes = new int[0];
+	private int[] stateParents = new int[0];
+	private int stateCount = 0;
+	/** cells of a state's path, last cell first, while it is loaded into path */
+	private final int[] chain;
+	/** for each cell of path, by position, the index in neighborCells of the next neighbor to try */
+	private final int[] nextNeighbor;
+	/** limits on the work each solve may do; unlimited unless setBudget() is called */
+	private SearchBudget budget = new SearchBudget();
+	/** counts of the work done by the last solve */
+	private final SearchMetrics metrics = new SearchMetrics();
+	/** points for each word found, or null (the default) not to score */
+	private BoggleScoring scoring;
+	/** total points for the words found by the current solve, when scoring */
+	private int score = 0;
+	/** number of word paths followed by the current solve, when scoring */
+	private int pathTotal = 0;
+	/** paths followed so far spelling each word found, when scoring: an open addressing
+	 * hash table from trie node + 1 (0 for an empty slot) to count, sized a power of two */
+	private int[] countNodes = new int[64];
+	private int[] counts = new int[64];
+
+	/**
+	 * @param board the board to solve
+	 * @param dictionary words to search for
+	 */
+	public BoggleSolver(BoggleBoard board, BoggleDictionary dictionary) {
+		this.dictionary = dictionary;
+		dimension = board.getDimension();
+		topology = board.getTopology();
+		tiles = new char[dimension * dimension];
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				tiles[row * dimension + col] = board.charAt(row, col);
+			}
+		}
+		neighborStarts = board.getNeighborStarts();
+		neighborCells = board.getNeighborCells();
+		path = new BogglePath(dimension);
+		chain = new int[tiles.length];
+		nextNeighbor = new int[tiles.length];
+	}
+
+	/**
+	 * Switches the solver to another board of the same size and topology.
+	 * The scratch space the solver has grown so far, for its path, found
+	 * words and scoring, is kept, so a thread solving many boards one after
+	 * another can keep one solver for all of them.
+	 * @param board the board to solve from now on
+	 * @return false, leaving the solver as it was, if board's dimension or topology differ
+	 */
+	public boolean setBoard(BoggleBoard board) {
+		if (board.getDimension() != dimension || board.getTopology() != topology) {
+			return false;
+		}
+		for (int cell = 0; cell < tiles.length; cell++) {
+			tiles[cell] = board.charAt(cell / dimension, cell % dimension);
+		}
+		neighborStarts = board.getNeighborStarts();
+		neighborCells = board.getNeighborCells();
+		return true;
+	}
+
+	/**
+	 * Changes the letter on one cell. Everything else the solver has set up
+	 * is kept, so solving a board that differs by a few tiles costs no more
+	 * setup than solving the same board again.
+	 * @param cell cell index (row * N + col) of a cell that has a tile
+	 * @param letter the new letter, where 'Q' stands for "QU"
+	 */
+	public void setTile(int cell, char letter) {
+		if (tiles[cell] == BoggleBoard.BLOCKED || letter == BoggleBoard.BLOCKED) {
+			throw new IllegalArgumentException("blocked cells cannot be changed");
+		}
+		tiles[cell] = Character.toUpperCase(letter);
+	}
+
+	/** @param cell cell index (row * N + col)
+	 * @return the letter currently on cell
+	 */
+	public char getTile(int cell) {
+		return tiles[cell];
+	}
+
+	/**
+	 * Limits the work done by the following calls to solve(). A solve that
+	 * runs out of budget delivers the words found so far and stops.
+	 * @param budget the limits to apply
+	 */
+	public void setBudget(SearchBudget budget) {
+		this.budget = budget;
+	}
+
+	/** @return false if the last solve ran out of budget, so it may have missed words */
+	public boolean isComplete() {
+		return !budget.isExhausted();
+	}
+
+	/** @return counts of the work done by the last solve(), which is also reported to SearchMetricsRegistry */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Scores the following solves as they run. Every path that spells a
+	 * word is counted, not just the first, and each distinct word's points
+	 * are added to the board's score once, so the score and path counts are
+	 * ready as soon as the solve ends with no second pass over the board.
+	 * Scoring applies to solve(), solve(WordSink) and
+	 * solve(WordSink, IntStorage.DataStructure).
+	 * @param scoring points for each word, or null to stop scoring
+	 */
+	public void setScoring(BoggleScoring scoring) {
+		this.scoring = scoring;
+	}
+
+	/** @return total points for the words found by the last solve, 0 if it was not scored */
+	public int getScore() {
+		return score;
+	}
+
+	/** @return number of paths spelling any word found by the last solve, 0 if it was not scored */
+	public int getPathTotal() {
+		return pathTotal;
+	}
+
+	/**
+	 * @param word a word
+	 * @return number of paths that spelled word in the last solve, 0 if it was
+	 * 		not found or the solve was not scored
+	 */
+	public int getPathCount(String word) {
+		int node = dictionary.getRoot();
+		for (int i = 0; i < word.length() && node != BoggleDictionary.NO_NODE; i++) {
+			node = dictionary.child(node, word.charAt(i));
+		}
+		if (node == BoggleDictionary.NO_NODE) {
+			return 0;
+		}
+		int mask = countNodes.length - 1;
+		for (int slot = hash(node) & mask; countNodes[slot] != 0; slot = (slot + 1) & mask) {
+			if (countNodes[slot] == node + 1) {
+				return counts[slot];
+			}
+		}
+		return 0;
+	}
+
+	/** @return the board as the solver currently sees it, tiles changed by setTile() included */
+	public BoggleBoard getBoard() {
+		char[][] letters = new char[dimension][dimension];
+		for (int cell = 0; cell < tiles.length; cell++) {
+			letters[cell / dimension][cell % dimension] = tiles[cell];
+		}
+		return new BoggleBoard(letters, topology);
+	}
+
+	/**
+	 * Finds every word on the board, each with the first path found for it.
+	 * @return the words found, in the order they were found
+	 */
+	public ArrayList<BoggleWord> solve() {
+		ListSink list = new ListSink();
+		solve(list);
+		return list.words;
+	}
+
+	/**
+	 * Finds every word on the board, passing each one to sink as soon as it
+	 * is found, along with the first path found for it.
+	 * @param sink receives each distinct word once
+	 */
+	public void solve(WordSink sink) {
+		long start = System.nanoTime();
+		resetFound(sink);
+		path.clear();
+		budget.start();
+		for (int cell = 0; cell < tiles.length && !budget.isExhausted(); cell++) {
+			int node = branch(dictionary.getRoot(), cell);
+			if (node != BoggleDictionary.NO_NODE) {
+				extend(cell, node);
+			}
+		}
+		this.sink = null;
+		finishMetrics(start);
+	}
+
+	/**
+	 * Finds every word on the board by expanding paths from a frontier in
+	 * the given order instead of depth first. Each frontier entry is the
+	 * index of a state record (last cell, trie node, parent state) held in
+	 * plain int arrays, so the frontier holds no objects. With
+	 * IntStorage.DataStructure.priority, the prefixes with the most
+	 * dictionary words below them are expanded first, so a caller that
+	 * only wants some good words can stop early. With a queue, words come
+	 * out shortest first.
+	 *
+	 * State records are kept until the solve ends, so this uses more memory
+	 * than solve(WordSink), in proportion to the number of prefixes on the board.
+	 * @param sink receives each distinct word once, along with the first path found for it
+	 * @param order the order to expand paths in
+	 */
+	public void solve(WordSink sink, IntStorage.DataStructure order) {
+		long start = System.nanoTime();
+		resetFound(sink);
+		path.clear();
+		budget.start();
+		stateCount = 0;
+		IntStorage frontier = new IntStorage(order);
+		for (int cell = 0; cell < tiles.length; cell++) {
+			int node = branch(dictionary.getRoot(), cell);
+			if (node != BoggleDictionary.NO_NODE) {
+				frontier.store(addState(cell, node, -1), dictionary.countWordsBelow(node));
+			}
+		}
+		while (!frontier.isEmpty() && budget.spend()) {
+			metrics.frontierSize(frontier.size());
+			int state = frontier.retrieve();
+			metrics.countState();
+			loadState(state);
+			int cell = stateCells[state];
+			int node = stateNodes[state];
+			checkWord(node);
+			for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++) {
+				int next = neighborCells[i];
+				int nextNode = branch(node, next);
+				if (nextNode != BoggleDictionary.NO_NODE) {
+					frontier.store(addState(next, nextNode, state), dictionary.countWordsBelow(nextNode));
+				}
+			}
+		}
+		path.clear();
+		this.sink = null;
+		finishMetrics(start);
+	}
+
+	/**
+	 * Finds every word whose path starts with prefix, each with the first path
+	 * found for it. Used to split one solve into independent subtrees.
+	 * @param prefix cell indexes of a path that spells a dictionary word prefix
+	 * @return the words found below prefix, prefix itself included, in the order they were found
+	 */
+	ArrayList<BoggleWord> solveFrom(int[] prefix) {
+		ListSink list = new ListSink();
+		solveFrom(prefix, list);
+		return list.words;
+	}
+
+	/**
+	 * Finds every word whose path starts with prefix, passing each one to
+	 * sink as soon as it is found.
+	 * @param prefix cell indexes of a path that spells a dictionary word prefix
+	 * @param sink receives each word found below prefix, prefix itself included, once
+	 */
+	void solveFrom(int[] prefix, WordSink sink) {
+		resetFound(sink);
+		if (loadPrefix(prefix)) {
+			int cell = path.lastCell();
+			int node = path.lastNode();
+			path.pop();
+			extend(cell, node);
+		}
+		path.clear();
+		this.sink = null;
+	}
+
+	/**
+	 * @param prefix cell indexes of a path
+	 * @return the word spelled by exactly that path, or null if it does not spell one
+	 */
+	BoggleWord wordAt(int[] prefix) {
+		BoggleWord word = null;
+		//foundNodes is not consulted: it still holds the words of this thread's last solveFrom(), from another subtree
+		if (loadPrefix(prefix) && dictionary.isWord(path.lastNode()) && path.wordLength() >= MINIMUM_WORD_LENGTH) {
+			word = new BoggleWord(path.getWord(), path.getCells(), dimension);
+		}
+		path.clear();
+		return word;
+	}
+
+	/**
+	 * @param prefix cell indexes of a path that spells a dictionary word prefix
+	 * @return the unvisited neighbors of prefix's last cell that keep it a word prefix
+	 */
+	int[] extensions(int[] prefix) {
+		int[] next = new int[8];
+		int count = 0;
+		if (loadPrefix(prefix)) {
+			int cell = path.lastCell();
+			int node = path.lastNode();
+			for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++) {
+				int neighbor = neighborCells[i];
+				if (!path.isVisited(neighbor) && extendPrefix(node, tiles[neighbor]) != BoggleDictionary.NO_NODE) {
+					next[count++] = neighbor;
+				}
+			}
+		}
+		path.clear();
+		int[] result = new int[count];
+		System.arraycopy(next, 0, result, 0, count);
+		return result;
+	}
+
+	/** Replace the current path with prefix.
+	 * @param prefix cell indexes of a path
+	 * @return false, leaving a partial path, if prefix does not spell a dictionary word prefix
+	 */
+	private boolean loadPrefix(int[] prefix) {
+		path.clear();
+		int node = dictionary.getRoot();
+		for (int cell : prefix) {
+			node = extendPrefix(node, tiles[cell]);
+			if (node == BoggleDictionary.NO_NODE) {
+				return false;
+			}
+			path.push(cell, tiles[cell], node);
+		}
+		return true;
+	}
+
+	/** Record a new frontier state.
+	 * @param cell the state's last cell
+	 * @param node trie node reached by the state's path
+	 * @param parent index of the state this one extends, or -1 to start a path
+	 * @return index of the new state
+	 */
+	private int addState(int cell, int node, int parent) {
+		if (stateCount == stateCells.length) {
+			int capacity = Math.max(64, stateCount * 2);
+			stateCells = Arrays.copyOf(stateCells, capacity);
+			stateNodes = Arrays.copyOf(stateNodes, capacity);
+			stateParents = Arrays.copyOf(stateParents, capacity);
+		}
+		stateCells[stateCount] = cell;
+		stateNodes[stateCount] = node;
+		stateParents[stateCount] = parent;
+		return stateCount++;
+	}
+
+	/** Replace the current path with the path of a frontier state.
+	 * @param state index of the state
+	 */
+	private void loadState(int state) {
+		int length = 0;
+		for (int s = state; s != -1; s = stateParents[s]) {
+			chain[length++] = s;
+		}
+		path.clear();
+		for (int i = length - 1; i >= 0; i--) {
+			int s = chain[i];
+			path.push(stateCells[s], tiles[stateCells[s]], stateNodes[s]);
+		}
+	}
+
+	/** Record the time taken by a solve and report its metrics.
+	 * @param start System.nanoTime() when the solve started
+	 */
+	private void finishMetrics(long start) {
+		metrics.addTime(SearchMetrics.Phase.search, System.nanoTime() - start);
+		SearchMetricsRegistry.getDefault().record(metrics);
+	}
+
+	/** Forget the words found before and send new ones to sink, and start counting metrics afresh.
+	 * @param sink receives the words found from now on
+	 */
+	private void resetFound(WordSink sink) {
+		for (int i = 0; i < foundNodeCount; i++) {
+			foundNodes.clear(foundNodeList[i]);
+		}
+		foundNodeCount = 0;
+		this.sink = sink;
+		metrics.reset();
+		score = 0;
+		pathTotal = 0;
+		Arrays.fill(countNodes, 0);
+	}
+
+	/**
+	 * Adds cell to the path, records a word if the path spells one, then
+	 * tries every unvisited neighbor that keeps the path a word prefix,
+	 * depth first. The path itself is the stack of the search, and
+	 * nextNeighbor records where each cell on it left off, so the search is
+	 * one loop however long its paths get, with no recursion to overflow the
+	 * thread's stack on large boards.
+	 * @param cell cell to add to the path
+	 * @param node dictionary trie node reached once cell is added
+	 */
+	private void extend(int cell, int node) {
+		int base = path.length();
+		if (!visit(cell, node)) {
+			return;
+		}
+		while (path.length() > base) {
+			int top = path.length() - 1;
+			int current = path.lastCell();
+			int i = nextNeighbor[top];
+			if (i == neighborStarts[current + 1]) { //every neighbor tried, backtrack
+				path.pop();
+				continue;
+			}
+			nextNeighbor[top] = i + 1;
+			int next = neighborCells[i];
+			int nextNode = branch(path.lastNode(), next);
+			if (nextNode != BoggleDictionary.NO_NODE && !visit(next, nextNode)) {
+				while (path.length() > base) { //out of budget, abandon the search
+					path.pop();
+				}
+			}
+		}
+	}
+
+	/** Add cell to the path, ready to try its neighbors, and record a word if the path spells one.
+	 * @param cell cell to add to the path
+	 * @param node dictionary trie node reached once cell is added
+	 * @return false, leaving the path as it was, if the budget has run out
+	 */
+	private boolean visit(int cell, int node) {
+		if (!budget.spend()) {
+			return false;
+		}
+		metrics.countState();
+		nextNeighbor[path.length()] = neighborStarts[cell];
+		path.push(cell, tiles[cell], node);
+		metrics.frontierSize(path.length());
+		checkWord(node);
+		return true;
+	}
+
+	/** If the current path spells a long enough word, record it the first
+	 * time it is found, and count the path when scoring.
+	 * @param node trie node reached by the current path
+	 */
+	private void checkWord(int node) {
+		if (!dictionary.isWord(node) || path.wordLength() < MINIMUM_WORD_LENGTH) {
+			return;
+		}
+		if (!foundNodes.get(node)) {
+			recordWord(node);
+		}
+		if (scoring != null) {
+			countPath(node);
+		}
+	}
+
+	/** Add one to the number of paths spelling the word at node.
+	 * @param node trie node of a word found by the current solve
+	 */
+	private void countPath(int node) {
+		pathTotal++;
+		int mask = countNodes.length - 1;
+		int slot = hash(node) & mask;
+		while (countNodes[slot] != 0 && countNodes[slot] != node + 1) {
+			slot = (slot + 1) & mask;
+		}
+		if (countNodes[slot] != 0) {
+			counts[slot]++;
+			return;
+		}
+		countNodes[slot] = node + 1;
+		counts[slot] = 1;
+		if (foundNodeCount * 2 > countNodes.length) { //keep the table at most half full
+			int[] oldNodes = countNodes;
+			int[] oldCounts = counts;
+			countNodes = new int[oldNodes.length * 2];
+			counts = new int[oldNodes.length * 2];
+			mask = countNodes.length - 1;
+			for (int i = 0; i < oldNodes.length; i++) {
+				if (oldNodes[i] != 0) {
+					slot = hash(oldNodes[i] - 1) & mask;
+					while (countNodes[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					countNodes[slot] = oldNodes[i];
+					counts[slot] = oldCounts[i];
+				}
+			}
+		}
+	}
+
+	/** @param node a trie node
+	 * @return node's bits mixed, so nodes numbered close together spread over the count table
+	 */
+	private static int hash(int node) {
+		return node * 0x9E3779B9 >>> 7;
+	}
+
+	/** Decide whether to add a cell to the current path, counting the prefix check and any prune.
+	 * @param node trie node reached by the current path
+	 * @param cell a neighbor of the path's last cell, or any cell if the path is empty
+	 * @return trie node reached once cell is added, or BoggleDictionary.NO_NODE if it should not be
+	 */
+	private int branch(int node, int cell) {
+		if (path.isVisited(cell)) {
+			metrics.countPruned();
+			return BoggleDictionary.NO_NODE;
+		}
+		int nextNode = extendPrefix(node, tiles[cell]);
+		metrics.countPrefixCheck(nextNode != BoggleDictionary.NO_NODE);
+		if (nextNode == BoggleDictionary.NO_NODE || !fits(cell)) {
+			metrics.countPruned();
+			return BoggleDictionary.NO_NODE;
+		}
+		return nextNode;
+	}
+
+	/** @param cell a cell that could be added to the current path
+	 * @return true if adding it keeps the word within the budget's maximum word length
+	 */
+	private boolean fits(int cell) {
+		return path.wordLength() + (tiles[cell] == 'Q' ? 2 : 1) <= budget.getMaxWordLength();
+	}
+
+	/** Mark the word spelled by the current path as found and pass it to the sink.
+	 * @param node trie node reached by the current path
+	 */
+	private void recordWord(int node) {
+		foundNodes.set(node);
+		if (foundNodeCount == foundNodeList.length) {
+			int[] bigger = new int[foundNodeList.length * 2];
+			System.arraycopy(foundNodeList, 0, bigger, 0, foundNodeList.length);
+			foundNodeList = bigger;
+		}
+		foundNodeList[foundNodeCount++] = node;
+		metrics.countWord();
+		String word = path.getWord();
+		if (scoring != null) {
+			score += scoring.score(word);
+		}
+		sink.wordFound(new BoggleWord(word, path.getCells(), dimension));
+	}
+
+	/** Follow the dictionary trie from node by the letters of one board tile.
+	 * @param node trie node for the path so far
+	 * @param tile letter on the board, where 'Q' stands for "QU"
+	 * @return trie node for the extended path, or BoggleDictionary.NO_NODE
+	 */
+	private int extendPrefix(int node, char tile) {
+		node = dictionary.child(node, tile);
+		if (tile == 'Q' && node != BoggleDictionary.NO_NODE) {
+			node = dictionary.child(node, 'U');
+		}
+		return node;
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLESOLVER.LISTSINK
+	////////////////////////////////////////////////////////
+
+	/** Collects found words in a list, in the order they arrive. */
+	private static class ListSink implements WordSink {
+		private final ArrayList<BoggleWord> words = new ArrayList<BoggleWord>();
+
+		public void wordFound(BoggleWord word) {
+			words.add(word);
+		}
+	} //BoggleSolver.ListSink inner class
+} // class BoggleSolver
@@ -0,0 +1,368 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Monte Carlo study of random Boggle boards. Rolls boards with BoggleDice,
+ * solves them on a pool of worker threads and tallies:
+ * <ul>
+ * <li>a histogram of the number of words per board,</li>
+ * <li>a histogram of the total score per board, using official scoring,</li>
+ * <li>how many boards each word appears on, and</li>
+ * <li>for each standard die and each of its letters, how many times it was
+ * rolled and how many found words ran through it.</li>
+ * </ul>
+ * Boards are rolled in fixed chunks, and every chunk draws from its own
+ * Random seeded from the run's seed and the chunk's number. The same seed
+ * therefore gives the same statistics whatever the number of threads.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleStatistics {
+	/** boards rolled and solved by one task, each task with its own random stream */
+	private static final int BOARDS_PER_CHUNK = 1000;
+	/** spreads chunk numbers apart so neighboring chunks get unrelated seeds */
+	private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+	/** how many of the most common words main() lists */
+	private static final int TOP_WORDS = 25;
+	/** how many rows main() prints for each histogram */
+	private static final int HISTOGRAM_ROWS = 20;
+
+	private final BoggleDictionary dictionary;
+	private final int dimension;
+
+	/**
+	 * @param dictionary words to search for, shared by every worker
+	 * @param dimension dimension N of the NxN boards to roll
+	 */
+	public BoggleStatistics(BoggleDictionary dictionary, int dimension) {
+		this.dictionary = dictionary;
+		this.dimension = dimension;
+	}
+
+	/**
+	 * Configures the simulation according to command line options, runs it and prints the results.
+	 *
+	 * @param args
+	 * 		number of boards to roll (required)<br>
+	 * 		boardDimension (optional, defaults to 4)<br>
+	 * 		random seed (optional, defaults to the current time)<br>
+	 * 		number of worker threads (optional, defaults to one per processor)<br>
+	 * 		dictionary file (optional, defaults to "dictionary.dat")
+	 * @throws Exception if the dictionary cannot be read or a worker fails
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1 || args.length > 5){
+			throw new IllegalArgumentException("args must contain 1 to 5 fields: board count, boardsize, seed, thread count and dictionary file, in that order.");
+		}
+		long boards = Long.parseLong(args[0]);
+		int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.currentTimeMillis();
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		String dictionaryFile = args.length > 4 ? args[4] : "dictionary.dat";
+
+		BoggleStatistics statistics = new BoggleStatistics(BoggleDictionary.getShared(dictionaryFile), dimension);
+		long start = System.nanoTime();
+		Tally tally = statistics.simulate(boards, seed, threads);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(tally.getBoards() + " " + dimension + "x" + dimension + " boards, seed " + seed
+				+ String.format(", %.1f s, %.0f boards/s", elapsed / 1e9, tally.getBoards() / (elapsed / 1e9)));
+		System.out.println(String.format("words per board: mean %.2f, sd %.2f", tally.getMeanWords(), tally.getWordsStandardDeviation()));
+		System.out.println(String.format("score per board: mean %.2f, sd %.2f", tally.getMeanScore(), tally.getScoreStandardDeviation()));
+		System.out.println();
+		System.out.println("words per board histogram");
+		printHistogram(tally.getWordCountHistogram());
+		System.out.println();
+		System.out.println("score per board histogram");
+		printHistogram(tally.getScoreHistogram());
+		System.out.println();
+		System.out.println("most common words (share of boards)");
+		for (Map.Entry<String, Long> entry : tally.getMostCommonWords(TOP_WORDS)) {
+			System.out.println(String.format("%-16s %6.2f%%", entry.getKey(), 100.0 * entry.getValue() / tally.getBoards()));
+		}
+		System.out.println();
+		System.out.println("words through each die face, per roll");
+		BoggleDice dice = new BoggleDice(1);
+		for (int die = 0; die < dice.getStandardDieCount(); die++) {
+			String faces = dice.getDieFaces(die);
+			StringBuilder row = new StringBuilder(String.format("die %2d %s:", die, faces));
+			for (char letter = 'A'; letter <= 'Z'; letter++) {
+				if (faces.indexOf(letter) >= 0) {
+					row.append(String.format(" %c %.2f", letter, tally.getYield(die, letter)));
+				}
+			}
+			System.out.println(row);
+		}
+	}
+
+	/**
+	 * Rolls and solves boards, splitting them into chunks across a pool of threads.
+	 *
+	 * @param boards number of boards to roll
+	 * @param seed seed for the whole run
+	 * @param threads number of worker threads
+	 * @return the statistics of all the boards
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws ExecutionException if a worker fails
+	 */
+	public Tally simulate(long boards, long seed, int threads) throws InterruptedException, ExecutionException {
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ExecutorCompletionService<Tally> chunks = new ExecutorCompletionService<Tally>(workers);
+		Tally total = new Tally();
+		try {
+			long chunkCount = (boards + BOARDS_PER_CHUNK - 1) / BOARDS_PER_CHUNK;
+			for (long chunk = 0; chunk < chunkCount; chunk++) {
+				final long chunkSeed = seed + chunk * SEED_STRIDE;
+				final int chunkBoards = (int) Math.min(BOARDS_PER_CHUNK, boards - chunk * BOARDS_PER_CHUNK);
+				chunks.submit(new Callable<Tally>() {
+					public Tally call() {
+						return simulateChunk(chunkBoards, new Random(chunkSeed));
+					}
+				});
+			}
+			//merge chunks as they finish, so finished tallies do not pile up
+			for (long chunk = 0; chunk < chunkCount; chunk++) {
+				total.add(chunks.take().get());
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+		return total;
+	}
+
+	/**
+	 * Rolls and solves boards one after another on the calling thread.
+	 *
+	 * @param boards number of boards to roll
+	 * @param rand source of every roll
+	 * @return the statistics of these boards
+	 */
+	private Tally simulateChunk(int boards, Random rand) {
+		Tally tally = new Tally();
+		BoggleDice dice = new BoggleDice(dimension * dimension, rand);
+		char[][] letters = new char[dimension][dimension];
+		for (int count = 0; count < boards; count++) {
+			if (count > 0) {
+				dice.shuffleDice();
+			}
+			for (int cell = 0; cell < dimension * dimension; cell++) {
+				letters[cell / dimension][cell % dimension] = dice.getLetter(cell);
+			}
+			ArrayList<BoggleWord> words = new BoggleSolver(new BoggleBoard(letters, BoggleBoard.Topology.grid), dictionary).solve();
+			tally.addBoard(dice, words);
+		}
+		return tally;
+	}
+
+	/**
+	 * Prints the histogram as at most HISTOGRAM_ROWS rows of equal-width value ranges.
+	 * @param histogram number of boards with each value
+	 */
+	private static void printHistogram(long[] histogram) {
+		int width = Math.max(1, (histogram.length + HISTOGRAM_ROWS - 1) / HISTOGRAM_ROWS);
+		long most = 1;
+		long[] rows = new long[(histogram.length + width - 1) / width];
+		for (int value = 0; value < histogram.length; value++) {
+			rows[value / width] += histogram[value];
+			most = Math.max(most, rows[value / width]);
+		}
+		for (int row = 0; row < rows.length; row++) {
+			StringBuilder bar = new StringBuilder();
+			for (long i = 0; i < rows[row] * 50 / most; i++) {
+				bar.append('#');
+			}
+			System.out.println(String.format("%5d-%-5d %9d %s", row * width, (row + 1) * width - 1, rows[row], bar));
+		}
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: BOGGLESTATISTICS.TALLY
+	////////////////////////////////////////////////////////
+
+	/** Running totals for a set of boards. Tallies for separate sets of boards can be added together. */
+	public static class Tally {
+		private long boards;
+		private long totalWords;
+		private double totalWordsSquared;
+		private long totalScore;
+		private double totalScoreSquared;
+		/** number of boards with each word count */
+		private long[] wordCounts = new long[64];
+		/** number of boards with each total score */
+		private long[] scores = new long[128];
+		/** number of boards each word was found on */
+		private HashMap<String, long[]> boardsPerWord = new HashMap<String, long[]>();
+		/** times each standard die rolled each letter */
+		private long[][] rolls = new long[0][26];
+		/** found words whose path ran through each standard die showing each letter */
+		private long[][] wordsThrough = new long[0][26];
+
+		/** @param dice the dice the board was rolled from
+		 * @param words the words found on the board */
+		private void addBoard(BoggleDice dice, ArrayList<BoggleWord> words) {
+			if (rolls.length < dice.getStandardDieCount()) {
+				rolls = new long[dice.getStandardDieCount()][26];
+				wordsThrough = new long[dice.getStandardDieCount()][26];
+			}
+			int score = 0;
+			for (BoggleWord word : words) {
+				score += BoggleScoring.OFFICIAL.score(word.getWord());
+				long[] count = boardsPerWord.get(word.getWord());
+				if (count == null) {
+					count = new long[1];
+					boardsPerWord.put(word.getWord(), count);
+				}
+				count[0]++;
+				for (int step = 0; step < word.length(); step++) {
+					int cell = word.getCell(step);
+					wordsThrough[dice.getDieNumber(cell)][dice.getLetter(cell) - 'A']++;
+				}
+			}
+			for (int cell = 0; cell < dice.size(); cell++) {
+				rolls[dice.getDieNumber(cell)][dice.getLetter(cell) - 'A']++;
+			}
+			boards++;
+			totalWords += words.size();
+			totalWordsSquared += (double) words.size() * words.size();
+			totalScore += score;
+			totalScoreSquared += (double) score * score;
+			wordCounts = increment(wordCounts, words.size(), 1);
+			scores = increment(scores, score, 1);
+		}
+
+		/** Add the boards counted by other to this tally.
+		 * @param other tally for a separate set of boards */
+		private void add(Tally other) {
+			if (rolls.length < other.rolls.length) {
+				rolls = new long[other.rolls.length][26];
+				wordsThrough = new long[other.rolls.length][26];
+			}
+			boards += other.boards;
+			totalWords += other.totalWords;
+			totalWordsSquared += other.totalWordsSquared;
+			totalScore += other.totalScore;
+			totalScoreSquared += other.totalScoreSquared;
+			for (int value = 0; value < other.wordCounts.length; value++) {
+				wordCounts = increment(wordCounts, value, other.wordCounts[value]);
+			}
+			for (int value = 0; value < other.scores.length; value++) {
+				scores = increment(scores, value, other.scores[value]);
+			}
+			for (Map.Entry<String, long[]> entry : other.boardsPerWord.entrySet()) {
+				long[] count = boardsPerWord.get(entry.getKey());
+				if (count == null) {
+					boardsPerWord.put(entry.getKey(), entry.getValue());
+				} else {
+					count[0] += entry.getValue()[0];
+				}
+			}
+			for (int die = 0; die < other.rolls.length; die++) {
+				for (int letter = 0; letter < 26; letter++) {
+					rolls[die][letter] += other.rolls[die][letter];
+					wordsThrough[die][letter] += other.wordsThrough[die][letter];
+				}
+			}
+		}
+
+		/** @return histogram with amount added at index, grown if needed */
+		private static long[] increment(long[] histogram, int index, long amount) {
+			if (index >= histogram.length) {
+				long[] bigger = new long[Math.max(index + 1, histogram.length * 2)];
+				System.arraycopy(histogram, 0, bigger, 0, histogram.length);
+				histogram = bigger;
+			}
+			histogram[index] += amount;
+			return histogram;
+		}
+
+		/** @return number of boards tallied */
+		public long getBoards() {
+			return boards;
+		}
+
+		/** @return mean number of words per board */
+		public double getMeanWords() {
+			return boards == 0 ? 0 : (double) totalWords / boards;
+		}
+
+		/** @return standard deviation of the number of words per board */
+		public double getWordsStandardDeviation() {
+			double mean = getMeanWords();
+			return boards == 0 ? 0 : Math.sqrt(Math.max(0, totalWordsSquared / boards - mean * mean));
+		}
+
+		/** @return mean total score per board */
+		public double getMeanScore() {
+			return boards == 0 ? 0 : (double) totalScore / boards;
+		}
+
+		/** @return standard deviation of the total score per board */
+		public double getScoreStandardDeviation() {
+			double mean = getMeanScore();
+			return boards == 0 ? 0 : Math.sqrt(Math.max(0, totalScoreSquared / boards - mean * mean));
+		}
+
+		/** @return copy of the histogram: element i is the number of boards with exactly i words */
+		public long[] getWordCountHistogram() {
+			return trim(wordCounts);
+		}
+
+		/** @return copy of the histogram: element i is the number of boards scoring exactly i points */
+		public long[] getScoreHistogram() {
+			return trim(scores);
+		}
+
+		/** @return copy of histogram without the empty entries at the end */
+		private static long[] trim(long[] histogram) {
+			int length = histogram.length;
+			while (length > 0 && histogram[length - 1] == 0) {
+				length--;
+			}
+			long[] copy = new long[length];
+			System.arraycopy(histogram, 0, copy, 0, length);
+			return copy;
+		}
+
+		/**
+		 * @param limit most words to return
+		 * @return the words found on the most boards, with the number of boards
+		 * 		for each, most common first and alphabetical among ties
+		 */
+		public ArrayList<Map.Entry<String, Long>> getMostCommonWords(int limit) {
+			ArrayList<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>();
+			for (Map.Entry<String, long[]> entry : boardsPerWord.entrySet()) {
+				entries.add(new AbstractMap.SimpleEntry<String, Long>(entry.getKey(), entry.getValue()[0]));
+			}
+			Collections.sort(entries, new Comparator<Map.Entry<String, Long>>(){
+				public int compare(Map.Entry<String, Long> first, Map.Entry<String, Long> second){
+					int byCount = second.getValue().compareTo(first.getValue());
+					return byCount != 0 ? byCount : first.getKey().compareTo(second.getKey());
+				}
+			});
+			return new ArrayList<Map.Entry<String, Long>>(entries.subList(0, Math.min(limit, entries.size())));
+		}
+
+		/**
+		 * @param die number of a die in the standard set
+		 * @param letter one of the die's letters
+		 * @return average number of found words whose path ran through the die
+		 * 		each time it showed letter, or 0 if it never did
+		 */
+		public double getYield(int die, char letter) {
+			if (die >= rolls.length || rolls[die][letter - 'A'] == 0) {
+				return 0;
+			}
+			return (double) wordsThrough[die][letter - 'A'] / rolls[die][letter - 'A'];
+		}
+	} //BoggleStatistics.Tally inner class
+} // class BoggleStatistics
@@ -0,0 +1,56 @@
+import java.awt.Point;
+
+/**
+ * A word found on a Boggle board, together with one path of cells that
+ * spells it.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleWord {
+	private final String word;
+	/** cell indexes (row * N + col) along the path */
+	private final int[] cells;
+	private final int dimension;
+
+	/**
+	 * @param word the word spelled by the path
+	 * @param cells cell indexes (row * N + col) along the path; not copied
+	 * @param dimension dimension N of the board
+	 */
+	public BoggleWord(String word, int[] cells, int dimension) {
+		this.word = word;
+		this.cells = cells;
+		this.dimension = dimension;
+	}
+
+	/** @return the word */
+	public String getWord() {
+		return word;
+	}
+
+	/** @return number of cells in the path */
+	public int length() {
+		return cells.length;
+	}
+
+	/** @param step position along the path, starting at 0
+	 * @return cell index (row * N + col) of that step
+	 */
+	public int getCell(int step) {
+		return cells[step];
+	}
+
+	/** @return the path in BoggleSearchState.getPath() form: an NxN grid where
+	 * each visited position holds its predecessor, and the first holds (-1, -1)
+	 */
+	public Point[][] getPath() {
+		return BogglePath.toPredecessorGrid(cells, cells.length, dimension);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return word;
+	}
+} // class BoggleWord
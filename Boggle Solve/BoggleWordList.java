@@ -0,0 +1,263 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Words found on one board, each with one path that spells it, stored
+ * compactly. A BoggleSearch.BoggleSearchState kept as a result holds an
+ * NxN grid of Points, most of them null, and copies it again on every
+ * getPath(); a board with thousands of words costs megabytes that way. A
+ * BoggleWordList instead packs the cell index (row * N + col) of every step
+ * of every path into a single array, a byte per cell on boards up to 16x16,
+ * a char on boards up to 256x256 and an int beyond that, with the start of
+ * each path in a second array.
+ *
+ * Paths are read back a step at a time with getCell(), or as a BoggleWord
+ * with get() or by iterating over the list. getPath() still builds the NxN
+ * predecessor grid that BoggleSearchState.getPath() returns, but only for
+ * the one word asked for.
+ *
+ * @author Stan Bessey
+ */
+public class BoggleWordList implements Iterable<BoggleWord> {
+	/** boards with at most this many cells store each cell in a byte */
+	private static final int BYTE_CELLS = 1 << 8;
+	/** boards with at most this many cells store each cell in a char */
+	private static final int CHAR_CELLS = 1 << 16;
+
+	private final int dimension;
+	private String[] words = new String[16];
+	/** where each path's cells start in the cell array; pathStarts[size] is where the next one goes */
+	private int[] pathStarts = new int[17];
+	/** every path's cells, end to end: exactly one of these is used, by the board's size */
+	private byte[] byteCells;
+	private char[] charCells;
+	private int[] intCells;
+	private int size = 0;
+
+	/**
+	 * @param dimension dimension N of the board the words were found on
+	 */
+	public BoggleWordList(int dimension) {
+		this.dimension = dimension;
+		int cellCount = dimension * dimension;
+		if (cellCount <= BYTE_CELLS) {
+			byteCells = new byte[64];
+		} else if (cellCount <= CHAR_CELLS) {
+			charCells = new char[64];
+		} else {
+			intCells = new int[64];
+		}
+	}
+
+	/** @return dimension N of the board the words were found on */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/** @return number of words in the list */
+	public int size() {
+		return size;
+	}
+
+	/** @return true if the list has no words */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds a word to the end of the list.
+	 * @param word the word spelled by the path
+	 * @param cells cell indexes (row * N + col) along the path; copied
+	 * @param length number of cells in the path
+	 */
+	public void add(String word, int[] cells, int length) {
+		if (size == words.length) {
+			words = Arrays.copyOf(words, size * 2);
+			pathStarts = Arrays.copyOf(pathStarts, size * 2 + 1);
+		}
+		int start = pathStarts[size];
+		ensureCellCapacity(start + length);
+		for (int step = 0; step < length; step++) {
+			setCell(start + step, cells[step]);
+		}
+		words[size] = word;
+		pathStarts[++size] = start + length;
+	}
+
+	/**
+	 * Adds a word to the end of the list.
+	 * @param word a word found on a board of this list's dimension
+	 */
+	public void add(BoggleWord word) {
+		int[] cells = new int[word.length()];
+		for (int step = 0; step < cells.length; step++) {
+			cells[step] = word.getCell(step);
+		}
+		add(word.getWord(), cells, cells.length);
+	}
+
+	/**
+	 * @param index position in the list
+	 * @return the word at index
+	 */
+	public String getWord(int index) {
+		checkIndex(index);
+		return words[index];
+	}
+
+	/**
+	 * @param index position in the list
+	 * @return number of cells in the path of the word at index
+	 */
+	public int length(int index) {
+		checkIndex(index);
+		return pathStarts[index + 1] - pathStarts[index];
+	}
+
+	/**
+	 * @param index position in the list
+	 * @param step position along the path, starting at 0
+	 * @return cell index (row * N + col) of that step of the path of the word at index
+	 */
+	public int getCell(int index, int step) {
+		if (step < 0 || step >= length(index)) {
+			throw new IndexOutOfBoundsException("step " + step + " of a path of " + length(index) + " cells");
+		}
+		return cellAt(pathStarts[index] + step);
+	}
+
+	/**
+	 * @param index position in the list
+	 * @return the word at index and its path, as a new BoggleWord
+	 */
+	public BoggleWord get(int index) {
+		int[] cells = new int[length(index)];
+		for (int step = 0; step < cells.length; step++) {
+			cells[step] = cellAt(pathStarts[index] + step);
+		}
+		return new BoggleWord(words[index], cells, dimension);
+	}
+
+	/**
+	 * @param word a word
+	 * @return position of the first entry for word in the list, or -1 if it is not in the list
+	 */
+	public int indexOf(String word) {
+		for (int i = 0; i < size; i++) {
+			if (words[i].equals(word)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index position in the list
+	 * @return the path of the word at index in BoggleSearchState.getPath() form:
+	 * 		an NxN grid where each visited position holds its predecessor, and the first holds (-1, -1)
+	 */
+	public Point[][] getPath(int index) {
+		return get(index).getPath();
+	}
+
+	/** Puts the words, and their paths with them, in alphabetical order. */
+	public void sort() {
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer first, Integer second) {
+				return words[first].compareTo(words[second]);
+			}
+		});
+		BoggleWordList sorted = new BoggleWordList(dimension);
+		sorted.ensureCellCapacity(pathStarts[size]);
+		int[] cells = new int[dimension * dimension];
+		for (int i : order) {
+			int length = length(i);
+			for (int step = 0; step < length; step++) {
+				cells[step] = cellAt(pathStarts[i] + step);
+			}
+			sorted.add(words[i], cells, length);
+		}
+		words = sorted.words;
+		pathStarts = sorted.pathStarts;
+		byteCells = sorted.byteCells;
+		charCells = sorted.charCells;
+		intCells = sorted.intCells;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<BoggleWord> iterator() {
+		return new Iterator<BoggleWord>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			public BoggleWord next() {
+				if (next == size) {
+					throw new NoSuchElementException();
+				}
+				return get(next++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/** @throws IndexOutOfBoundsException if index is not a position in the list */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " of " + size + " words");
+		}
+	}
+
+	/** @return cell stored at position i of the cell array */
+	private int cellAt(int i) {
+		if (byteCells != null) {
+			return byteCells[i] & 0xFF;
+		} else if (charCells != null) {
+			return charCells[i];
+		}
+		return intCells[i];
+	}
+
+	/** Store cell at position i of the cell array. */
+	private void setCell(int i, int cell) {
+		if (byteCells != null) {
+			byteCells[i] = (byte) cell;
+		} else if (charCells != null) {
+			charCells[i] = (char) cell;
+		} else {
+			intCells[i] = cell;
+		}
+	}
+
+	/** Grow the cell array, doubling, until it holds at least capacity cells. */
+	private void ensureCellCapacity(int capacity) {
+		if (byteCells != null && byteCells.length < capacity) {
+			byteCells = Arrays.copyOf(byteCells, Math.max(capacity, byteCells.length * 2));
+		} else if (charCells != null && charCells.length < capacity) {
+			charCells = Arrays.copyOf(charCells, Math.max(capacity, charCells.length * 2));
+		} else if (intCells != null && intCells.length < capacity) {
+			intCells = Arrays.copyOf(intCells, Math.max(capacity, intCells.length * 2));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return Arrays.toString(Arrays.copyOf(words, size));
+	}
+} // class BoggleWordList
@@ -0,0 +1,338 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Keeps the words on a board up to date as its tiles change one at a time,
+ * for editors and optimizers that would otherwise re-solve the whole board
+ * after every change.
+ *
+ * The solver keeps every path that spells a word, not just the first, and
+ * indexes them by the cells they pass through. When a tile changes, only
+ * the paths through that cell can change. It drops the word paths listed
+ * for the cell, changes the tile, and searches for the paths through the
+ * cell that spell words with the new letter. A word is on the board while
+ * it has a path, so the words are always exactly those a full solve would
+ * find.
+ *
+ * The search for paths through a cell gives up on any path that has not
+ * reached the cell yet if it is further from the cell, in steps, than the
+ * longest word still possible below the path's prefix (see
+ * BoggleDictionary.maxLengthBelow()), or if no word below the prefix uses
+ * the cell's letter (see BoggleDictionary.lettersBelow()). So the cost of a
+ * change grows with the part of the board near the changed cell, not with
+ * the whole board.
+ *
+ * A solver is not thread safe. The dictionary can be shared.
+ *
+ * @author Stan Bessey
+ */
+public class IncrementalBoggleSolver {
+	private final BoggleDictionary dictionary;
+	private final int dimension;
+	private final BoggleBoard.Topology topology;
+	/** board letters by cell index (row * N + col) */
+	private final char[] tiles;
+	/** the board's neighbor table, see BoggleBoard.getNeighborStarts() */
+	private final int[] neighborStarts;
+	private final int[] neighborCells;
+	/** the path currently being extended */
+	private final BogglePath path;
+	/** for each cell of path, by position, the index in neighborCells of the next neighbor to try */
+	private final int[] nextNeighbor;
+	/** steps from the changed cell to each cell, while paths through it are being searched */
+	private final int[] distance;
+	/** number of paths on the board spelling the word at each trie node */
+	private final int[] pathCounts;
+	/** the words with at least one path, by trie node */
+	private final HashMap<Integer, String> words = new HashMap<Integer, String>();
+	/** trie node of the word spelled by each stored path, by path id, or -1 once the path is dropped */
+	private int[] pathNodes = new int[256];
+	/** cells of each stored path, by path id */
+	private int[][] pathCells = new int[256][];
+	/** path ids handed out so far */
+	private int pathIds = 0;
+	/** path ids handed out for paths since dropped */
+	private int droppedPaths = 0;
+	/** ids of the stored paths through each cell. Ids of dropped paths are
+	 * skipped when read, and swept out by compact() once they pile up. */
+	private final int[][] cellPaths;
+	private final int[] cellPathCounts;
+
+	/**
+	 * Solves the board in full, storing every word path.
+	 * @param board the board to solve
+	 * @param dictionary words to search for
+	 */
+	public IncrementalBoggleSolver(BoggleBoard board, BoggleDictionary dictionary) {
+		this.dictionary = dictionary;
+		dimension = board.getDimension();
+		topology = board.getTopology();
+		tiles = new char[dimension * dimension];
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				tiles[row * dimension + col] = board.charAt(row, col);
+			}
+		}
+		neighborStarts = board.getNeighborStarts();
+		neighborCells = board.getNeighborCells();
+		path = new BogglePath(dimension);
+		nextNeighbor = new int[tiles.length];
+		distance = new int[tiles.length];
+		pathCounts = new int[dictionary.getNodeCount()];
+		cellPaths = new int[tiles.length][8];
+		cellPathCounts = new int[tiles.length];
+		addPaths(-1);
+	}
+
+	/**
+	 * Changes the letter on one cell and brings the words up to date by
+	 * searching only the paths through that cell.
+	 * @param cell cell index (row * N + col) of a cell that has a tile
+	 * @param letter the new letter, where 'Q' stands for "QU"
+	 */
+	public void setTile(int cell, char letter) {
+		letter = Character.toUpperCase(letter);
+		if (tiles[cell] == BoggleBoard.BLOCKED || letter == BoggleBoard.BLOCKED) {
+			throw new IllegalArgumentException("blocked cells cannot be changed");
+		}
+		if (tiles[cell] == letter) {
+			return;
+		}
+		dropPaths(cell);
+		tiles[cell] = letter;
+		addPaths(cell);
+	}
+
+	/** @param cell cell index (row * N + col)
+	 * @return the letter currently on cell
+	 */
+	public char getTile(int cell) {
+		return tiles[cell];
+	}
+
+	/** @return the board as it currently is, tiles changed by setTile() included */
+	public BoggleBoard getBoard() {
+		char[][] letters = new char[dimension][dimension];
+		for (int cell = 0; cell < tiles.length; cell++) {
+			letters[cell / dimension][cell % dimension] = tiles[cell];
+		}
+		return new BoggleBoard(letters, topology);
+	}
+
+	/** @return number of distinct words on the board */
+	public int size() {
+		return words.size();
+	}
+
+	/**
+	 * @param word a word
+	 * @return number of paths on the board that spell word, 0 if it is not on the board
+	 */
+	public int getPathCount(String word) {
+		int node = dictionary.getRoot();
+		for (int i = 0; i < word.length() && node != BoggleDictionary.NO_NODE; i++) {
+			node = dictionary.child(node, word.charAt(i));
+		}
+		return node == BoggleDictionary.NO_NODE ? 0 : pathCounts[node];
+	}
+
+	/**
+	 * @param scoring points for each word
+	 * @return total points for the words on the board
+	 */
+	public int score(BoggleScoring scoring) {
+		int total = 0;
+		for (String word : words.values()) {
+			total += scoring.score(word);
+		}
+		return total;
+	}
+
+	/**
+	 * Lists the words on the board, each with one of its paths.
+	 * @return the words on the board, in alphabetical order
+	 */
+	public ArrayList<BoggleWord> getWords() {
+		ArrayList<BoggleWord> found = new ArrayList<BoggleWord>();
+		BitSet listed = new BitSet();
+		for (int id = 0; id < pathIds; id++) {
+			int node = pathNodes[id];
+			if (node >= 0 && !listed.get(node)) {
+				listed.set(node);
+				found.add(new BoggleWord(words.get(node), pathCells[id], dimension));
+			}
+		}
+		Collections.sort(found, new Comparator<BoggleWord>() {
+			public int compare(BoggleWord first, BoggleWord second) {
+				return first.getWord().compareTo(second.getWord());
+			}
+		});
+		return found;
+	}
+
+	/**
+	 * Finds and stores every path through target that spells a word, or
+	 * every such path on the board if target is -1, depth first.
+	 * @param target cell every stored path must pass through, or -1 for every path
+	 */
+	private void addPaths(int target) {
+		if (target >= 0) {
+			findDistances(target);
+		}
+		path.clear();
+		for (int cell = 0; cell < tiles.length; cell++) {
+			int node = branch(dictionary.getRoot(), cell, target);
+			if (node == BoggleDictionary.NO_NODE) {
+				continue;
+			}
+			visit(cell, node, target);
+			while (path.length() > 0) {
+				int top = path.length() - 1;
+				int current = path.lastCell();
+				int i = nextNeighbor[top];
+				if (i == neighborStarts[current + 1]) { //every neighbor tried, backtrack
+					path.pop();
+					continue;
+				}
+				nextNeighbor[top] = i + 1;
+				int next = neighborCells[i];
+				int nextNode = branch(path.lastNode(), next, target);
+				if (nextNode != BoggleDictionary.NO_NODE) {
+					visit(next, nextNode, target);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node trie node reached by the current path
+	 * @param cell a neighbor of the path's last cell, or any cell if the path is empty
+	 * @param target cell the path must pass through, or -1
+	 * @return trie node reached once cell is added, or BoggleDictionary.NO_NODE
+	 * 		if it is on the path already, spells no prefix, or can no longer reach target
+	 */
+	private int branch(int node, int cell, int target) {
+		if (tiles[cell] == BoggleBoard.BLOCKED || path.isVisited(cell)) {
+			return BoggleDictionary.NO_NODE;
+		}
+		int nextNode = dictionary.child(node, tiles[cell]);
+		if (tiles[cell] == 'Q' && nextNode != BoggleDictionary.NO_NODE) {
+			nextNode = dictionary.child(nextNode, 'U');
+		}
+		if (nextNode != BoggleDictionary.NO_NODE && target >= 0 && cell != target && !path.isVisited(target)) {
+			//every further step adds at least one letter, so a path can't get further than its words are long,
+			//and it can only reach target if some word below uses target's letter
+			if (distance[cell] > dictionary.maxLengthBelow(nextNode)
+					|| (dictionary.lettersBelow(nextNode) & (1 << (tiles[target] - 'A'))) == 0) {
+				return BoggleDictionary.NO_NODE;
+			}
+		}
+		return nextNode;
+	}
+
+	/** Add cell to the path, ready to try its neighbors, and store the path if it spells a word.
+	 * @param cell cell to add to the path
+	 * @param node dictionary trie node reached once cell is added
+	 * @param target cell the path must pass through to be stored, or -1
+	 */
+	private void visit(int cell, int node, int target) {
+		nextNeighbor[path.length()] = neighborStarts[cell];
+		path.push(cell, tiles[cell], node);
+		if (dictionary.isWord(node) && path.wordLength() >= BoggleSolver.MINIMUM_WORD_LENGTH
+				&& (target < 0 || path.isVisited(target))) {
+			if (pathCounts[node]++ == 0) {
+				words.put(node, path.getWord());
+			}
+			storePath(node, path.getCells());
+		}
+	}
+
+	/** Give a word path an id and list it under each of its cells.
+	 * @param node trie node of the word the path spells
+	 * @param cells the path's cells
+	 */
+	private void storePath(int node, int[] cells) {
+		if (pathIds == pathNodes.length) {
+			pathNodes = Arrays.copyOf(pathNodes, pathIds * 2);
+			pathCells = Arrays.copyOf(pathCells, pathIds * 2);
+		}
+		int id = pathIds++;
+		pathNodes[id] = node;
+		pathCells[id] = cells;
+		for (int cell : cells) {
+			if (cellPathCounts[cell] == cellPaths[cell].length) {
+				cellPaths[cell] = Arrays.copyOf(cellPaths[cell], cellPathCounts[cell] * 2);
+			}
+			cellPaths[cell][cellPathCounts[cell]++] = id;
+		}
+	}
+
+	/** Drop every stored path through cell, and every word left with no path.
+	 * @param cell the cell about to change
+	 */
+	private void dropPaths(int cell) {
+		for (int i = 0; i < cellPathCounts[cell]; i++) {
+			int id = cellPaths[cell][i];
+			int node = pathNodes[id];
+			if (node < 0) { //dropped already, through another of its cells
+				continue;
+			}
+			if (--pathCounts[node] == 0) {
+				words.remove(node);
+			}
+			pathNodes[id] = -1;
+			pathCells[id] = null;
+			droppedPaths++;
+		}
+		cellPathCounts[cell] = 0;
+		if (droppedPaths > pathIds / 2) {
+			compact();
+		}
+	}
+
+	/** Renumber the stored paths so no ids are left over from dropped ones. */
+	private void compact() {
+		int[] nodes = pathNodes;
+		int[][] cells = pathCells;
+		int ids = pathIds;
+		pathNodes = new int[Math.max(256, 2 * (ids - droppedPaths))];
+		pathCells = new int[pathNodes.length][];
+		pathIds = 0;
+		droppedPaths = 0;
+		for (int cell = 0; cell < cellPathCounts.length; cell++) {
+			cellPathCounts[cell] = 0;
+		}
+		for (int id = 0; id < ids; id++) {
+			if (nodes[id] >= 0) {
+				storePath(nodes[id], cells[id]);
+			}
+		}
+	}
+
+	/** Fill in distance with the number of steps from target to every cell, breadth first.
+	 * @param target the cell to measure from
+	 */
+	private void findDistances(int target) {
+		for (int cell = 0; cell < distance.length; cell++) {
+			distance[cell] = Integer.MAX_VALUE;
+		}
+		IntStorage queue = new IntStorage(IntStorage.DataStructure.queue);
+		distance[target] = 0;
+		queue.store(target);
+		while (!queue.isEmpty()) {
+			int cell = queue.retrieve();
+			for (int i = neighborStarts[cell]; i < neighborStarts[cell + 1]; i++) {
+				int next = neighborCells[i];
+				if (distance[next] == Integer.MAX_VALUE) {
+					distance[next] = distance[cell] + 1;
+					queue.store(next);
+				}
+			}
+		}
+	}
+
+} // class IncrementalBoggleSolver
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/** A container for int elements, such as packed search state indexes, in
+ *  one of several possible orders. It works like Storage but keeps its
+ *  elements in a plain int[], so storing an element never allocates an
+ *  object and retrieving one never unboxes it. The array only grows, so a
+ *  container that is clear()ed and reused allocates nothing once it has
+ *  reached its largest size.
+ *  Additional orders can be added by adding to the DataStructure enum
+ *  values and adding corresponding cases to wrapper methods.
+ *
+ *  @author Stan Bessey
+ */
+public class IntStorage {
+	/** supported retrieval orders */
+	public static enum DataStructure {stack, queue, priority}
+	/** the order chosen for this IntStorage */
+	private final DataStructure dataStructure;
+	/** the elements; a ring starting at head for queue, a binary max-heap on ranks for priority */
+	private int[] elements = new int[64];
+	/** rank of each element in elements, only used for priority */
+	private int[] ranks;
+	/** index of the next element to retrieve from a queue */
+	private int head = 0;
+	private int size = 0;
+
+	/** Constructor
+	 * @param dataStructure choice of DataStructures
+	 */
+	public IntStorage(DataStructure dataStructure) {
+		this.dataStructure = dataStructure;
+		if (dataStructure == DataStructure.priority) {
+			ranks = new int[elements.length];
+		}
+	}
+
+	/** Add element with rank 0
+	 * @param element int to store
+	 */
+	public void store(int element) {
+		store(element, 0);
+	}
+
+	/** Add element to storage. Only priority storage looks at the rank:
+	 * it retrieves elements with higher ranks first.
+	 * @param element int to store
+	 * @param rank how soon element should be retrieved
+	 */
+	public void store(int element, int rank) {
+		if (size == elements.length) {
+			grow();
+		}
+		switch (dataStructure) {
+		case stack:
+			elements[size] = element;
+			break;
+		case queue:
+			elements[(head + size) % elements.length] = element;
+			break;
+		case priority:
+			//sift the new element up from the end of the heap
+			int child = size;
+			while (child > 0 && ranks[(child - 1) / 2] < rank) {
+				elements[child] = elements[(child - 1) / 2];
+				ranks[child] = ranks[(child - 1) / 2];
+				child = (child - 1) / 2;
+			}
+			elements[child] = element;
+			ranks[child] = rank;
+		}
+		size++;
+	}
+
+	/** Remove and return the next int from storage
+	 * @return next int from storage
+	 * @throws IllegalStateException if storage is empty
+	 */
+	public int retrieve() {
+		if (size == 0) {
+			throw new IllegalStateException("storage is empty");
+		}
+		size--;
+		switch (dataStructure) {
+		case stack:
+			return elements[size];
+		case queue:
+			int first = elements[head];
+			head = (head + 1) % elements.length;
+			return first;
+		case priority:
+			int top = elements[0];
+			//sift the last element down from the root
+			int element = elements[size];
+			int rank = ranks[size];
+			int parent = 0;
+			int child;
+			while ((child = 2 * parent + 1) < size) {
+				if (child + 1 < size && ranks[child + 1] > ranks[child]) {
+					child++;
+				}
+				if (ranks[child] <= rank) {
+					break;
+				}
+				elements[parent] = elements[child];
+				ranks[parent] = ranks[child];
+				parent = child;
+			}
+			elements[parent] = element;
+			ranks[parent] = rank;
+			return top;
+		default:
+			throw new RuntimeException("unreachable"); //shouldn't ever happen b/c we're using an enum and have all types covered
+		}
+	}
+
+	/** @return true if store is empty, else false */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** @return size of store */
+	public int size() {
+		return size;
+	}
+
+	/** Remove every element, keeping the space they took for reuse. */
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	/** Double the capacity, unwrapping a queue's ring so it starts at index 0. */
+	private void grow() {
+		int[] bigger = new int[elements.length * 2];
+		if (dataStructure == DataStructure.queue) {
+			int tail = elements.length - head;
+			System.arraycopy(elements, head, bigger, 0, tail);
+			System.arraycopy(elements, 0, bigger, tail, head);
+			head = 0;
+		} else {
+			System.arraycopy(elements, 0, bigger, 0, size);
+		}
+		elements = bigger;
+		if (ranks != null) {
+			ranks = Arrays.copyOf(ranks, elements.length);
+		}
+	}
+} // class IntStorage
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solves a BoggleBoard on a ForkJoinPool. The starting cells are split in
+ * halves until each task owns one cell. While other workers are short of
+ * work, a task then forks one subtask per neighbor that extends its path,
+ * down to MAX_SPLIT_DEPTH cells, so a few very productive starting letters
+ * cannot leave most of the pool idle. Idle workers steal the forked tasks.
+ *
+ * Every task searches with its worker thread's own BoggleSolver. Word sets
+ * are merged left to right, so the result lists the same words, with the
+ * same first paths and in the same order, as BoggleSolver.solve().
+ * Alternatively, solve(BoggleBoard, WordSink) streams each word to a sink
+ * as soon as any worker finds it, without holding per-task word sets.
+ *
+ * One ParallelBoggleSolver can solve any number of boards, one after
+ * another or at the same time. Call shutdown() when it is no longer needed.
+ *
+ * @author Stan Bessey
+ */
+public class ParallelBoggleSolver {
+	/** longest path, in cells, that a task will still split into subtasks */
+	private static final int MAX_SPLIT_DEPTH = 3;
+	/** only split while this worker has at most this many queued tasks nobody has stolen */
+	private static final int SURPLUS_THRESHOLD = 2;
+
+	private final ForkJoinPool pool;
+	private final BoggleDictionary dictionary;
+
+	/**
+	 * @param dictionary words to search for
+	 * @param parallelism number of worker threads to solve with
+	 */
+	public ParallelBoggleSolver(BoggleDictionary dictionary, int parallelism) {
+		this.dictionary = dictionary;
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Uses one worker thread per available processor.
+	 * @param dictionary words to search for
+	 */
+	public ParallelBoggleSolver(BoggleDictionary dictionary) {
+		this(dictionary, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Finds every word on the board, each with the first path found for it.
+	 * @param board the board to solve
+	 * @return the words found, in the order BoggleSolver.solve() would find them
+	 */
+	public ArrayList<BoggleWord> solve(final BoggleBoard board) {
+		ThreadLocal<BoggleSolver> solvers = new ThreadLocal<BoggleSolver>() {
+			protected BoggleSolver initialValue() {
+				return new BoggleSolver(board, dictionary);
+			}
+		};
+		int cellCount = board.getDimension() * board.getDimension();
+		LinkedHashMap<String, BoggleWord> words = pool.invoke(new SolveTask(solvers, null, 0, cellCount));
+		return new ArrayList<BoggleWord>(words.values());
+	}
+
+	/**
+	 * Finds every word on the board, passing each one to sink as soon as a
+	 * worker finds it. Each word is delivered once, and calls to sink never
+	 * overlap, but the order of the words and which of their paths is kept
+	 * depend on thread timing.
+	 * @param board the board to solve
+	 * @param sink receives each distinct word once
+	 */
+	public void solve(final BoggleBoard board, WordSink sink) {
+		ThreadLocal<BoggleSolver> solvers = new ThreadLocal<BoggleSolver>() {
+			protected BoggleSolver initialValue() {
+				return new BoggleSolver(board, dictionary);
+			}
+		};
+		int cellCount = board.getDimension() * board.getDimension();
+		pool.invoke(new SolveTask(solvers, new DistinctSink(sink), 0, cellCount));
+	}
+
+	/** @return number of worker threads */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/** Stop the worker threads once any running solves finish. */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/** Add the words of right that left does not have yet, keeping left's paths.
+	 * @param left words found earlier in search order
+	 * @param right words found later in search order
+	 * @return left, now holding both
+	 */
+	private static LinkedHashMap<String, BoggleWord> merge(LinkedHashMap<String, BoggleWord> left,
+			LinkedHashMap<String, BoggleWord> right) {
+		for (BoggleWord word : right.values()) {
+			if (!left.containsKey(word.getWord())) {
+				left.put(word.getWord(), word);
+			}
+		}
+		return left;
+	}
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: PARALLELBOGGLESOLVER.SOLVETASK
+	////////////////////////////////////////////////////////
+
+	/** Searches either a range of starting cells or every path that begins with a prefix. */
+	@SuppressWarnings("serial")
+	private static class SolveTask extends RecursiveTask<LinkedHashMap<String, BoggleWord>> {
+		private final ThreadLocal<BoggleSolver> solvers;
+		/** receives words as soon as they are found, or null to return them from compute() instead */
+		private final WordSink stream;
+		/** cells of the path to search below, or null to search the range of starting cells */
+		private final int[] prefix;
+		private final int firstCell;
+		private final int endCell;
+
+		/** Search every path starting in cells firstCell up to (not including) endCell. */
+		public SolveTask(ThreadLocal<BoggleSolver> solvers, WordSink stream, int firstCell, int endCell) {
+			this.solvers = solvers;
+			this.stream = stream;
+			this.prefix = null;
+			this.firstCell = firstCell;
+			this.endCell = endCell;
+		}
+
+		/** Search every path that starts with prefix. */
+		public SolveTask(ThreadLocal<BoggleSolver> solvers, WordSink stream, int[] prefix) {
+			this.solvers = solvers;
+			this.stream = stream;
+			this.prefix = prefix;
+			this.firstCell = 0;
+			this.endCell = 0;
+		}
+
+		protected LinkedHashMap<String, BoggleWord> compute() {
+			if (prefix == null && endCell - firstCell > 1) {
+				int middle = (firstCell + endCell) >>> 1;
+				SolveTask left = new SolveTask(solvers, stream, firstCell, middle);
+				left.fork();
+				LinkedHashMap<String, BoggleWord> right = new SolveTask(solvers, stream, middle, endCell).compute();
+				return merge(left.join(), right);
+			}
+			int[] path = prefix == null ? new int[] {firstCell} : prefix;
+			BoggleSolver solver = solvers.get();
+			LinkedHashMap<String, BoggleWord> words = new LinkedHashMap<String, BoggleWord>();
+
+			if (path.length >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > SURPLUS_THRESHOLD) {
+				if (stream != null) {
+					solver.solveFrom(path, stream);
+				} else {
+					for (BoggleWord word : solver.solveFrom(path)) {
+						words.put(word.getWord(), word);
+					}
+				}
+				return words;
+			}
+
+			//split: the word spelled by path itself, then one subtask per way to extend it
+			BoggleWord word = solver.wordAt(path);
+			if (word != null && stream != null) {
+				stream.wordFound(word);
+			} else if (word != null) {
+				words.put(word.getWord(), word);
+			}
+			int[] next = solver.extensions(path);
+			SolveTask[] subtasks = new SolveTask[next.length];
+			for (int i = 0; i < next.length; i++) {
+				int[] longer = new int[path.length + 1];
+				System.arraycopy(path, 0, longer, 0, path.length);
+				longer[path.length] = next[i];
+				subtasks[i] = new SolveTask(solvers, stream, longer);
+			}
+			invokeAll(subtasks);
+			for (SolveTask subtask : subtasks) {
+				merge(words, subtask.join());
+			}
+			return words;
+		}
+	} //ParallelBoggleSolver.SolveTask inner class
+
+	////////////////////////////////////////////////////////
+	// INNER CLASS: PARALLELBOGGLESOLVER.DISTINCTSINK
+	////////////////////////////////////////////////////////
+
+	/** Passes each word on to a caller's sink the first time any worker finds it, one call at a time. */
+	private static class DistinctSink implements WordSink {
+		private final WordSink sink;
+		private final ConcurrentHashMap<String, Boolean> seen = new ConcurrentHashMap<String, Boolean>();
+
+		public DistinctSink(WordSink sink) {
+			this.sink = sink;
+		}
+
+		public void wordFound(BoggleWord word) {
+			if (seen.putIfAbsent(word.getWord(), Boolean.TRUE) == null) {
+				synchronized (this) {
+					sink.wordFound(word);
+				}
+			}
+		}
+	} //ParallelBoggleSolver.DistinctSink inner class
+} // class ParallelBoggleSolver
@@ -0,0 +1,106 @@
+/**
+ * Limits on how much work a single search may do: a time limit, a maximum
+ * number of states (paths) to expand, and a maximum word length. The
+ * budget can also be cancelled from any thread. A search that runs out of
+ * budget stops where it is and keeps the words it found so far. Afterwards,
+ * isExhausted() tells the caller that those words may not be all of them,
+ * and getLimitReached() tells why.
+ *
+ * The maximum word length never makes a search incomplete; it only
+ * narrows which words count. Paths longer than that are not followed.
+ *
+ * A budget keeps count for one search at a time, and the search restarts
+ * the count when it begins. Give each concurrent search its own budget.
+ *
+ * @author Stan Bessey
+ */
+public class SearchBudget {
+	/** why a search stopped before it finished */
+	public static enum Limit {none, time, states, cancelled}
+
+	/** states expanded between readings of the clock, which costs more than a state */
+	private static final int CLOCK_INTERVAL = 256;
+
+	/** time limit in nanoseconds, or 0 for none */
+	private long timeLimit = 0;
+	private long maxStates = Long.MAX_VALUE;
+	private int maxWordLength = Integer.MAX_VALUE;
+	private volatile boolean cancelled = false;
+
+	/** System.nanoTime() at which the current search runs out of time, if timeLimit is set */
+	private long deadline;
+	/** states expanded by the current search */
+	private long states;
+	private Limit limitReached = Limit.none;
+
+	/** @param millis how long a search may run, in milliseconds, or 0 for no limit */
+	public void setTimeLimit(long millis) {
+		timeLimit = millis * 1000000;
+	}
+
+	/** @param maxStates how many states (paths) a search may expand */
+	public void setMaxStates(long maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/** @param maxWordLength longest word, in letters, a search should look for */
+	public void setMaxWordLength(int maxWordLength) {
+		this.maxWordLength = maxWordLength;
+	}
+
+	/** @return longest word, in letters, a search should look for */
+	public int getMaxWordLength() {
+		return maxWordLength;
+	}
+
+	/**
+	 * Asks the search using this budget to stop. It can be called from any
+	 * thread; the search stops before it expands its next state. A cancelled
+	 * budget stays cancelled.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/** Starts counting for a new search. Called by the search itself. */
+	public void start() {
+		states = 0;
+		limitReached = Limit.none;
+		deadline = System.nanoTime() + timeLimit;
+	}
+
+	/**
+	 * Spends one state. Called by the search before it expands each state.
+	 * @return true if the state may be expanded, false if the search must stop
+	 */
+	public boolean spend() {
+		if (limitReached != Limit.none) {
+			return false;
+		}
+		if (cancelled) {
+			limitReached = Limit.cancelled;
+		} else if (states >= maxStates) {
+			limitReached = Limit.states;
+		} else if (timeLimit > 0 && states % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+			limitReached = Limit.time;
+		} else {
+			states++;
+		}
+		return limitReached == Limit.none;
+	}
+
+	/** @return true if the last search stopped early, so its words may be incomplete */
+	public boolean isExhausted() {
+		return limitReached != Limit.none;
+	}
+
+	/** @return the limit that stopped the last search, or Limit.none if it finished */
+	public Limit getLimitReached() {
+		return limitReached;
+	}
+
+	/** @return number of states the last search expanded */
+	public long getStatesUsed() {
+		return states;
+	}
+} // class SearchBudget
@@ -0,0 +1,170 @@
+/**
+ * Counts the work done by one search:
+ * <ul>
+ * <li>states (paths) expanded,</li>
+ * <li>branches pruned, meaning neighbors not followed because they were
+ * already on the path, spelled no dictionary prefix, or would make the
+ * word too long,</li>
+ * <li>prefix checks, meaning steps down the dictionary trie to see whether
+ * a path still begins some word, and how many of them found a prefix,</li>
+ * <li>whole-word dictionary lookups, and how many of them found a word,</li>
+ * <li>distinct words found,</li>
+ * <li>the most states waiting to be expanded at any one time,</li>
+ * <li>and the time spent in each Phase.</li>
+ * </ul>
+ * The trie searches (BoggleSolver, and the classic BoggleSearch as it
+ * expands paths) read each path's word straight off the trie node its
+ * prefix check reached, so they make prefix checks only; whole-word
+ * lookups come from BoggleSearch.findWords(). Prefix checks are therefore
+ * comparable from one search to another.
+ *
+ * Searches keep one SearchMetrics each and report it to
+ * SearchMetricsRegistry when they finish, where the totals over every
+ * search are available through JMX.
+ *
+ * A SearchMetrics is not thread safe; it belongs to one search.
+ *
+ * @author Stan Bessey
+ */
+public class SearchMetrics {
+	/** parts of a solve that are timed separately */
+	public static enum Phase {load, search, dedup, sort}
+
+	private long statesExpanded;
+	private long branchesPruned;
+	private long prefixChecks;
+	private long prefixHits;
+	private long dictionaryLookups;
+	private long dictionaryHits;
+	private long wordsFound;
+	private int peakFrontierSize;
+	/** nanoseconds spent in each Phase, by ordinal */
+	private final long[] phaseNanos = new long[Phase.values().length];
+
+	/** Sets every count and time back to zero. */
+	public void reset() {
+		statesExpanded = 0;
+		branchesPruned = 0;
+		prefixChecks = 0;
+		prefixHits = 0;
+		dictionaryLookups = 0;
+		dictionaryHits = 0;
+		wordsFound = 0;
+		peakFrontierSize = 0;
+		for (int i = 0; i < phaseNanos.length; i++) {
+			phaseNanos[i] = 0;
+		}
+	}
+
+	/** Counts one state expanded. */
+	public void countState() {
+		statesExpanded++;
+	}
+
+	/** Counts one neighbor that was not followed. */
+	public void countPruned() {
+		branchesPruned++;
+	}
+
+	/** Counts one step down the dictionary trie.
+	 * @param hit true if the path still begins some dictionary word
+	 */
+	public void countPrefixCheck(boolean hit) {
+		prefixChecks++;
+		if (hit) {
+			prefixHits++;
+		}
+	}
+
+	/** Counts one whole-word dictionary lookup.
+	 * @param hit true if the lookup found a word
+	 */
+	public void countLookup(boolean hit) {
+		dictionaryLookups++;
+		if (hit) {
+			dictionaryHits++;
+		}
+	}
+
+	/** Counts one distinct word found. */
+	public void countWord() {
+		wordsFound++;
+	}
+
+	/** @param size number of states currently waiting to be expanded */
+	public void frontierSize(int size) {
+		if (size > peakFrontierSize) {
+			peakFrontierSize = size;
+		}
+	}
+
+	/** @param phase part of the solve
+	 * @param nanos time spent in it, added to any time already recorded
+	 */
+	public void addTime(Phase phase, long nanos) {
+		phaseNanos[phase.ordinal()] += nanos;
+	}
+
+	/** @return number of states (paths) expanded */
+	public long getStatesExpanded() {
+		return statesExpanded;
+	}
+
+	/** @return number of neighbors not followed */
+	public long getBranchesPruned() {
+		return branchesPruned;
+	}
+
+	/** @return number of steps down the dictionary trie */
+	public long getPrefixChecks() {
+		return prefixChecks;
+	}
+
+	/** @return number of prefix checks that found a prefix */
+	public long getPrefixHits() {
+		return prefixHits;
+	}
+
+	/** @return number of whole-word dictionary lookups */
+	public long getDictionaryLookups() {
+		return dictionaryLookups;
+	}
+
+	/** @return number of whole-word dictionary lookups that found a word */
+	public long getDictionaryHits() {
+		return dictionaryHits;
+	}
+
+	/** @return number of distinct words found */
+	public long getWordsFound() {
+		return wordsFound;
+	}
+
+	/** @return most states waiting to be expanded at any one time */
+	public int getPeakFrontierSize() {
+		return peakFrontierSize;
+	}
+
+	/** @param phase part of the solve
+	 * @return nanoseconds spent in it
+	 */
+	public long getTime(Phase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("states ").append(statesExpanded);
+		str.append(", pruned ").append(branchesPruned);
+		str.append(", prefix checks ").append(prefixChecks);
+		str.append(" (").append(prefixHits).append(" hits)");
+		str.append(", lookups ").append(dictionaryLookups);
+		str.append(" (").append(dictionaryHits).append(" hits)");
+		str.append(", words ").append(wordsFound);
+		str.append(", peak frontier ").append(peakFrontierSize);
+		for (Phase phase : Phase.values()) {
+			str.append(String.format(", %s %.3f ms", phase, getTime(phase) / 1e6));
+		}
+		return str.toString();
+	}
+} // class SearchMetrics
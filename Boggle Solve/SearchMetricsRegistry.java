@@ -0,0 +1,147 @@
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Adds up the SearchMetrics of every search in the process, so solver cost
+ * can be watched while it runs. The default registry is registered with
+ * the platform MBean server as "BoggleSolve:type=SearchMetrics", where
+ * jconsole and other JMX clients can read it.
+ *
+ * Reporting a search takes a lock, once per search; nothing is shared
+ * while a search runs.
+ *
+ * @author Stan Bessey
+ */
+public class SearchMetricsRegistry implements SearchMetricsRegistryMBean {
+	/** name the default registry is registered under */
+	public static final String OBJECT_NAME = "BoggleSolve:type=SearchMetrics";
+
+	private static SearchMetricsRegistry defaultRegistry;
+
+	private long searches;
+	private long statesExpanded;
+	private long branchesPruned;
+	private long prefixChecks;
+	private long prefixHits;
+	private long dictionaryLookups;
+	private long dictionaryHits;
+	private long wordsFound;
+	private long peakFrontierSize;
+	/** nanoseconds spent in each SearchMetrics.Phase, by ordinal */
+	private final long[] phaseNanos = new long[SearchMetrics.Phase.values().length];
+
+	/**
+	 * Gets the registry that searches report to, registering it with the
+	 * platform MBean server the first time. If it cannot be registered, for
+	 * instance because JMX is not permitted, it still keeps the totals.
+	 * @return the process-wide registry
+	 */
+	public static synchronized SearchMetricsRegistry getDefault() {
+		if (defaultRegistry == null) {
+			defaultRegistry = new SearchMetricsRegistry();
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(defaultRegistry, new ObjectName(OBJECT_NAME));
+			} catch (JMException | SecurityException e) {
+				//monitoring is optional, solving is not
+			}
+		}
+		return defaultRegistry;
+	}
+
+	/**
+	 * Adds one finished search to the totals.
+	 * @param metrics the search's counts and times
+	 */
+	public synchronized void record(SearchMetrics metrics) {
+		searches++;
+		statesExpanded += metrics.getStatesExpanded();
+		branchesPruned += metrics.getBranchesPruned();
+		prefixChecks += metrics.getPrefixChecks();
+		prefixHits += metrics.getPrefixHits();
+		dictionaryLookups += metrics.getDictionaryLookups();
+		dictionaryHits += metrics.getDictionaryHits();
+		wordsFound += metrics.getWordsFound();
+		peakFrontierSize = Math.max(peakFrontierSize, metrics.getPeakFrontierSize());
+		for (SearchMetrics.Phase phase : SearchMetrics.Phase.values()) {
+			phaseNanos[phase.ordinal()] += metrics.getTime(phase);
+		}
+	}
+
+	/**
+	 * Adds time spent outside any one search, such as loading a dictionary.
+	 * @param phase what the time was spent on
+	 * @param nanos time spent
+	 */
+	public synchronized void addTime(SearchMetrics.Phase phase, long nanos) {
+		phaseNanos[phase.ordinal()] += nanos;
+	}
+
+	public synchronized long getSearches() {
+		return searches;
+	}
+
+	public synchronized long getStatesExpanded() {
+		return statesExpanded;
+	}
+
+	public synchronized long getBranchesPruned() {
+		return branchesPruned;
+	}
+
+	public synchronized long getPrefixChecks() {
+		return prefixChecks;
+	}
+
+	public synchronized long getPrefixHits() {
+		return prefixHits;
+	}
+
+	public synchronized long getDictionaryLookups() {
+		return dictionaryLookups;
+	}
+
+	public synchronized long getDictionaryHits() {
+		return dictionaryHits;
+	}
+
+	public synchronized long getWordsFound() {
+		return wordsFound;
+	}
+
+	public synchronized long getPeakFrontierSize() {
+		return peakFrontierSize;
+	}
+
+	public synchronized double getLoadMillis() {
+		return phaseNanos[SearchMetrics.Phase.load.ordinal()] / 1e6;
+	}
+
+	public synchronized double getSearchMillis() {
+		return phaseNanos[SearchMetrics.Phase.search.ordinal()] / 1e6;
+	}
+
+	public synchronized double getDedupMillis() {
+		return phaseNanos[SearchMetrics.Phase.dedup.ordinal()] / 1e6;
+	}
+
+	public synchronized double getSortMillis() {
+		return phaseNanos[SearchMetrics.Phase.sort.ordinal()] / 1e6;
+	}
+
+	public synchronized void reset() {
+		searches = 0;
+		statesExpanded = 0;
+		branchesPruned = 0;
+		prefixChecks = 0;
+		prefixHits = 0;
+		dictionaryLookups = 0;
+		dictionaryHits = 0;
+		wordsFound = 0;
+		peakFrontierSize = 0;
+		for (int i = 0; i < phaseNanos.length; i++) {
+			phaseNanos[i] = 0;
+		}
+	}
+} // class SearchMetricsRegistry
@@ -0,0 +1,49 @@
+/**
+ * The JMX view of SearchMetricsRegistry: totals over every search reported
+ * since the process started or reset() was last called.
+ *
+ * @author Stan Bessey
+ */
+public interface SearchMetricsRegistryMBean {
+	/** @return number of searches reported */
+	long getSearches();
+
+	/** @return states (paths) expanded by all searches */
+	long getStatesExpanded();
+
+	/** @return neighbors not followed by all searches */
+	long getBranchesPruned();
+
+	/** @return steps down the dictionary trie by all searches */
+	long getPrefixChecks();
+
+	/** @return prefix checks that found a prefix */
+	long getPrefixHits();
+
+	/** @return whole-word dictionary lookups by all searches */
+	long getDictionaryLookups();
+
+	/** @return whole-word dictionary lookups that found a word */
+	long getDictionaryHits();
+
+	/** @return distinct words found, summed over searches */
+	long getWordsFound();
+
+	/** @return most states any one search had waiting to be expanded */
+	long getPeakFrontierSize();
+
+	/** @return milliseconds spent loading dictionaries */
+	double getLoadMillis();
+
+	/** @return milliseconds spent searching boards */
+	double getSearchMillis();
+
+	/** @return milliseconds spent removing duplicate words */
+	double getDedupMillis();
+
+	/** @return milliseconds spent sorting results */
+	double getSortMillis();
+
+	/** Sets every total back to zero. */
+	void reset();
+}
@@ -0,0 +1,71 @@
+import java.io.PrintWriter;
+
+/**
+ * Optional trace of the states a search expands, for watching a search
+ * work or debugging one. Writing every state would take far longer than
+ * the search itself, so a trace writes one state in every sampleEvery, and
+ * at most maxLinesPerSecond lines in any second; the rest are counted but
+ * dropped. Lines go through a buffered writer and are only flushed when
+ * the trace is closed, so tracing never waits on a terminal.
+ *
+ * Searches do no tracing at all unless they are given a SearchTrace.
+ *
+ * @author Stan Bessey
+ */
+public class SearchTrace {
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final PrintWriter out;
+	private final int sampleEvery;
+	private final int maxLinesPerSecond;
+	/** states offered to the trace */
+	private long states = 0;
+	/** sampled states not written because of the rate limit */
+	private long dropped = 0;
+	/** System.nanoTime() when the current one second window began */
+	private long windowStart;
+	/** lines written in the current window */
+	private int windowLines = 0;
+
+	/**
+	 * @param out where trace lines are written; should be buffered
+	 * @param sampleEvery trace one state in this many, 1 to trace every state
+	 * @param maxLinesPerSecond most lines to write in any one second
+	 */
+	public SearchTrace(PrintWriter out, int sampleEvery, int maxLinesPerSecond) {
+		if (sampleEvery < 1 || maxLinesPerSecond < 1) {
+			throw new IllegalArgumentException("sampleEvery and maxLinesPerSecond must be positive");
+		}
+		this.out = out;
+		this.sampleEvery = sampleEvery;
+		this.maxLinesPerSecond = maxLinesPerSecond;
+		windowStart = System.nanoTime();
+	}
+
+	/**
+	 * Offers one expanded state to the trace, which writes it if it is sampled and within the rate limit.
+	 * @param word the word (or gibberish) spelled by the state's path
+	 */
+	public void state(String word) {
+		if (++states % sampleEvery != 0) {
+			return;
+		}
+		if (windowLines == maxLinesPerSecond) {
+			long now = System.nanoTime();
+			if (now - windowStart < NANOS_PER_SECOND) {
+				dropped++;
+				return;
+			}
+			windowStart = now;
+			windowLines = 0;
+		}
+		windowLines++;
+		out.println(word);
+	}
+
+	/** Writes how many states were seen and dropped, and flushes the trace. */
+	public void close() {
+		out.println("trace: " + states + " states, one in " + sampleEvery + " sampled, " + dropped + " dropped by the rate limit");
+		out.flush();
+	}
+} // class SearchTrace
@@ -0,0 +1,495 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks the solvers built for speed against a fresh BoggleSolver.solve()
+ * on the same boards, so a change to one of them that loses or invents
+ * words shows up. Boards are drawn from fixed seeds, in every size from 3x3
+ * to 6x6 and every topology, so every run checks the same boards. Their
+ * letters are weighted as in English text, except on every fourth board,
+ * which is drawn from Q, O and E only, so words that fit on two cells
+ * ("QUO") are common. Every other board has one cell blocked. Each word's
+ * path is checked too: it must spell the word, through distinct open
+ * cells, each a neighbor of the one before.
+ *
+ * Run from the command line:
+ * <pre>
+ * java SolverCheck [dictionary file] [check name]
+ * </pre>
+ * It prints one line per check, and the first few mismatches of each on
+ * standard error, and exits with status 1 if any check found a mismatch.
+ *
+ * @author Stan Bessey
+ */
+public class SolverCheck {
+	/** what can be checked */
+	public static enum Check {parallel, incremental, cache, wordFirst, restrict, scoring, packed}
+
+	private static final long SEED = 20161017L;
+	private static final int MIN_DIMENSION = 3;
+	private static final int MAX_DIMENSION = 6;
+	private static final int BOARDS_PER_SIZE = 8;
+	/** letters drawn for most boards, each as often as in English text */
+	private static final String LETTERS = "EEEEEEEEEEEETTTTTTTTTAAAAAAAAOOOOOOOIIIIIIINNNNNNNSSSSSSHHHHHHRRRRRRDDDDLLLLCCCUUUMMMWWFFGGYYPPBVKJXQZ";
+	/** letters drawn for every fourth board */
+	private static final String Q_LETTERS = "QQQOE";
+	/** worker threads the parallel solver is checked with */
+	private static final int[] PARALLELISMS = {1, 2, 4};
+	/** tiles changed, one at a time, on each board the incremental solver keeps up to date */
+	private static final int CHANGES_PER_BOARD = 12;
+	/** boards no bigger than this are also checked word first with every open cell an 'A',
+	 * which gives the word-first solver more paths than it keeps */
+	private static final int MAX_REPEAT_DIMENSION = 4;
+	/** longest word of 'A's checked on those boards */
+	private static final int MAX_REPEAT_LENGTH = 8;
+	/** mismatches printed for each check; the rest are only counted */
+	private static final int MISMATCHES_SHOWN = 10;
+
+	private final BoggleDictionary dictionary;
+	private int boardsChecked;
+	private int mismatches;
+	/** one parallel solver for each of PARALLELISMS, while the parallel check runs */
+	private ParallelBoggleSolver[] parallelSolvers;
+	/** built the first time the word-first check runs */
+	private BoggleSolvePlanner planner;
+	private WordFirstBoggleSolver wordFirst;
+	/** words of nothing but 'A's, and a word-first solver for them */
+	private BoggleDictionary repeatDictionary;
+	private WordFirstBoggleSolver repeatWordFirst;
+
+	/**
+	 * @param dictionary words to search for
+	 */
+	public SolverCheck(BoggleDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Runs every check, or the one named.
+	 *
+	 * @param args
+	 * 		dictionary file (optional, defaults to "dictionary.dat")<br>
+	 * 		name of the one check to run (optional, defaults to all of them)
+	 * @throws Exception if the dictionary cannot be read
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length > 2){
+			throw new IllegalArgumentException("args must contain 0 to 2 fields: dictionary file and check name, in that order.");
+		}
+		String dictionaryFile = args.length > 0 ? args[0] : "dictionary.dat";
+		SolverCheck checker = new SolverCheck(new BoggleDictionary(dictionaryFile));
+		boolean passed = true;
+		for (Check check : Check.values()) {
+			if (args.length < 2 || args[1].equals(check.name())) {
+				passed &= checker.run(check);
+			}
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Runs one check over every board.
+	 * @param check what to check
+	 * @return true if nothing disagreed with BoggleSolver
+	 */
+	public boolean run(Check check) {
+		boardsChecked = 0;
+		mismatches = 0;
+		if (check == Check.parallel) {
+			parallelSolvers = new ParallelBoggleSolver[PARALLELISMS.length];
+			for (int i = 0; i < PARALLELISMS.length; i++) {
+				parallelSolvers[i] = new ParallelBoggleSolver(dictionary, PARALLELISMS[i]);
+			}
+		}
+		try {
+			for (BoggleBoard.Topology topology : BoggleBoard.Topology.values()) {
+				for (int dimension = MIN_DIMENSION; dimension <= MAX_DIMENSION; dimension++) {
+					for (BoggleBoard board : boards(topology, dimension)) {
+						switch (check) {
+						case parallel:
+							checkParallel(board);
+							break;
+						case incremental:
+							checkIncremental(board);
+							break;
+						case cache:
+							checkCache(board);
+							break;
+						case wordFirst:
+							checkWordFirst(board);
+							break;
+						case restrict:
+							checkRestrict(board);
+							break;
+						case scoring:
+							checkScoring(board);
+							break;
+						case packed:
+							checkPacked(board);
+							break;
+						}
+						boardsChecked++;
+					}
+				}
+			}
+		} finally {
+			if (parallelSolvers != null) {
+				for (ParallelBoggleSolver solver : parallelSolvers) {
+					solver.shutdown();
+				}
+				parallelSolvers = null;
+			}
+		}
+		System.out.println(String.format("%s: %d boards, %d mismatches", check, boardsChecked, mismatches));
+		return mismatches == 0;
+	}
+
+	/**
+	 * Solves the board with ParallelBoggleSolver at every one of
+	 * PARALLELISMS, checking that the words, their first paths and their
+	 * order are those of BoggleSolver.solve(), and that streaming finds the
+	 * same words.
+	 * @param board the board to solve
+	 */
+	private void checkParallel(BoggleBoard board) {
+		ArrayList<BoggleWord> expected = new BoggleSolver(board, dictionary).solve();
+		for (ParallelBoggleSolver solver : parallelSolvers) {
+			String what = "parallel with " + solver.getParallelism() + " threads";
+			compareOrder(what, board, expected, solver.solve(board));
+			final List<BoggleWord> streamed = Collections.synchronizedList(new ArrayList<BoggleWord>());
+			solver.solve(board, new WordSink() {
+				public void wordFound(BoggleWord word) {
+					streamed.add(word);
+				}
+			});
+			compare(what + ", streamed", board, expected, streamed);
+		}
+	}
+
+	/**
+	 * Changes tiles one at a time with IncrementalBoggleSolver, checking its
+	 * words and path counts against a fresh solve of the board after each change.
+	 * @param board the board to start from
+	 */
+	private void checkIncremental(BoggleBoard board) {
+		IncrementalBoggleSolver incremental = new IncrementalBoggleSolver(board, dictionary);
+		BoggleSearch paths = new BoggleSearch(board.getDimension(), dictionary);
+		paths.setCountPaths(true); //counts every path, to compare path counts with
+		Random rand = new Random(SEED + boardsChecked);
+		int cellCount = board.getDimension() * board.getDimension();
+		for (int change = 0; change <= CHANGES_PER_BOARD; change++) {
+			if (change > 0) {
+				int cell;
+				do {
+					cell = rand.nextInt(cellCount);
+				} while (incremental.getTile(cell) == BoggleBoard.BLOCKED);
+				incremental.setTile(cell, (char) ('A' + rand.nextInt(26)));
+			}
+			BoggleBoard current = incremental.getBoard();
+			ArrayList<BoggleWord> expected = new BoggleSolver(current, dictionary).solve();
+			paths.search(current, paths.createStorage(Storage.DataStructure.stack));
+			String what = "incremental after " + change + " changes";
+			compare(what, current, expected, incremental.getWords());
+			for (BoggleWord word : expected) {
+				if (incremental.getPathCount(word.getWord()) != paths.getPathCount(word.getWord())) {
+					mismatch(what, current, word.getWord() + " has " + incremental.getPathCount(word.getWord())
+							+ " paths, not " + paths.getPathCount(word.getWord()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves every rotation and reflection of the board through one
+	 * BoggleSolutionCache, checking each answer, paths mapped back from the
+	 * canonical board included, against a fresh solve of the turned board.
+	 * Misses are searched with one solver, switched from board to board the
+	 * way a server worker keeps its solver.
+	 * Grid and torus boards keep all eight symmetries, so they should miss
+	 * once; hex boards keep only four, so the other four turn it into a
+	 * second board, and they should miss at most twice.
+	 * @param board the board to turn
+	 */
+	private void checkCache(BoggleBoard board) {
+		BoggleSolutionCache cache = new BoggleSolutionCache(dictionary, BoggleSolutionCache.Symmetry.values().length);
+		BoggleSolver solver = new BoggleSolver(boards(board.getTopology(), board.getDimension())[1], dictionary); //one cell blocked
+		int dimension = board.getDimension();
+		for (BoggleSolutionCache.Symmetry symmetry : BoggleSolutionCache.Symmetry.values()) {
+			char[][] letters = new char[dimension][dimension];
+			for (int row = 0; row < dimension; row++) {
+				for (int col = 0; col < dimension; col++) {
+					int cell = symmetry.apply(row, col, dimension);
+					letters[cell / dimension][cell % dimension] = board.charAt(row, col);
+				}
+			}
+			BoggleBoard turned = new BoggleBoard(letters, board.getTopology());
+			compare("cache after " + symmetry, turned, new BoggleSolver(turned, dictionary).solve(), cache.solve(turned, solver));
+		}
+		if (cache.getMisses() > 2) {
+			mismatch("cache", board, cache.getMisses() + " misses over " + BoggleSolutionCache.Symmetry.values().length + " turns of one board");
+		}
+	}
+
+	/**
+	 * Solves the board with WordFirstBoggleSolver, and through
+	 * BoggleSolvePlanner with each strategy and with the one it chooses.
+	 * Small boards are solved once more with every open cell an 'A',
+	 * against words of nothing but 'A's, so each word has more paths than
+	 * the word-first solver keeps in a list.
+	 * @param board the board to solve
+	 */
+	private void checkWordFirst(BoggleBoard board) {
+		if (planner == null) {
+			planner = new BoggleSolvePlanner(dictionary);
+			wordFirst = new WordFirstBoggleSolver(dictionary);
+			ArrayList<String> repeats = new ArrayList<String>();
+			for (int length = BoggleSolver.MINIMUM_WORD_LENGTH; length <= MAX_REPEAT_LENGTH; length++) {
+				char[] word = new char[length];
+				Arrays.fill(word, 'A');
+				repeats.add(new String(word));
+			}
+			repeatDictionary = new BoggleDictionary(repeats);
+			repeatWordFirst = new WordFirstBoggleSolver(repeatDictionary);
+		}
+		ArrayList<BoggleWord> expected = new BoggleSolver(board, dictionary).solve();
+		compare("word first", board, expected, wordFirst.solve(board));
+		for (BoggleSolvePlanner.Strategy strategy : BoggleSolvePlanner.Strategy.values()) {
+			compare("planner " + strategy, board, expected, planner.solve(board, strategy));
+		}
+		compare("planner, " + planner.choose(board) + " chosen", board, expected, planner.solve(board));
+
+		int dimension = board.getDimension();
+		if (dimension <= MAX_REPEAT_DIMENSION) {
+			char[][] letters = new char[dimension][dimension];
+			for (int cell = 0; cell < dimension * dimension; cell++) {
+				char tile = board.charAt(cell / dimension, cell % dimension);
+				letters[cell / dimension][cell % dimension] = tile == BoggleBoard.BLOCKED ? tile : 'A';
+			}
+			BoggleBoard repeated = new BoggleBoard(letters, board.getTopology());
+			compare("word first, all 'A's", repeated, new BoggleSolver(repeated, repeatDictionary).solve(),
+					repeatWordFirst.solve(repeated));
+		}
+	}
+
+	/**
+	 * Solves the board against the dictionary cut down to its tiles, with
+	 * and without the letter pairs next to each other on it, checking both
+	 * against a solve with the whole dictionary.
+	 * @param board the board to solve
+	 */
+	private void checkRestrict(BoggleBoard board) {
+		ArrayList<BoggleWord> expected = new BoggleSolver(board, dictionary).solve();
+		BoggleDictionary byCounts = dictionary.restrictTo(board.getTileCounts());
+		compare("restrictTo(tileCounts)", board, expected, new BoggleSolver(board, byCounts).solve());
+		BoggleDictionary byPairs = dictionary.restrictTo(board.getTileCounts(), board.getAdjacentLetters());
+		compare("restrictTo(tileCounts, adjacentLetters)", board, expected, new BoggleSolver(board, byPairs).solve());
+	}
+
+	/**
+	 * Scores the board with BoggleSolver under the official scoring, checking
+	 * that scoring leaves the words it finds unchanged, the score against
+	 * those words, and each word's path count and the total against the
+	 * classic BoggleSearch counting paths.
+	 * @param board the board to solve
+	 */
+	private void checkScoring(BoggleBoard board) {
+		BoggleSolver solver = new BoggleSolver(board, dictionary);
+		solver.setScoring(BoggleScoring.OFFICIAL);
+		ArrayList<BoggleWord> found = solver.solve();
+		compare("scoring", board, new BoggleSolver(board, dictionary).solve(), found);
+		BoggleSearch search = new BoggleSearch(board.getDimension(), dictionary);
+		search.setCountPaths(true);
+		search.search(board, search.createStorage(Storage.DataStructure.stack));
+		int score = 0;
+		int paths = 0;
+		for (BoggleWord word : found) {
+			score += BoggleScoring.OFFICIAL.score(word.getWord());
+			paths += search.getPathCount(word.getWord());
+			if (solver.getPathCount(word.getWord()) != search.getPathCount(word.getWord())) {
+				mismatch("scoring", board, word.getWord() + " has " + solver.getPathCount(word.getWord())
+						+ " paths, not " + search.getPathCount(word.getWord()));
+			}
+		}
+		if (solver.getScore() != score) {
+			mismatch("scoring", board, "scored " + solver.getScore() + ", not " + score);
+		}
+		if (solver.getPathTotal() != paths) {
+			mismatch("scoring", board, solver.getPathTotal() + " paths in all, not " + paths);
+		}
+	}
+
+	/**
+	 * Checks the packed word lists: the classic BoggleSearch's, searching
+	 * depth first, must hold BoggleSolver.solve()'s words, in the same
+	 * order; and a list the solver's words are added to must give every
+	 * word and path back, sorted, and find each word again by name.
+	 * @param board the board to solve
+	 */
+	private void checkPacked(BoggleBoard board) {
+		ArrayList<BoggleWord> expected = new BoggleSolver(board, dictionary).solve();
+		BoggleSearch search = new BoggleSearch(board.getDimension(), dictionary);
+		BoggleWordList searched = search.search(board, search.createStorage(Storage.DataStructure.stack));
+		ArrayList<BoggleWord> found = new ArrayList<BoggleWord>();
+		for (BoggleWord word : searched) {
+			found.add(word);
+		}
+		compare("BoggleSearch word list", board, expected, found);
+
+		BoggleWordList list = new BoggleWordList(board.getDimension());
+		for (BoggleWord word : expected) {
+			list.add(word);
+		}
+		list.sort();
+		ArrayList<BoggleWord> sorted = new ArrayList<BoggleWord>(expected);
+		Collections.sort(sorted, new Comparator<BoggleWord>() {
+			public int compare(BoggleWord first, BoggleWord second) {
+				return first.getWord().compareTo(second.getWord());
+			}
+		});
+		ArrayList<BoggleWord> listed = new ArrayList<BoggleWord>();
+		for (BoggleWord word : list) {
+			listed.add(word);
+		}
+		compareOrder("BoggleWordList, sorted", board, sorted, listed);
+		for (int i = 0; i < sorted.size(); i++) {
+			if (list.indexOf(sorted.get(i).getWord()) != i) {
+				mismatch("BoggleWordList, sorted", board, sorted.get(i).getWord() + " is at " + i
+						+ ", not " + list.indexOf(sorted.get(i).getWord()));
+			}
+		}
+	}
+
+	/**
+	 * Counts a mismatch for every word missing from found, every word found
+	 * that BoggleSolver did not find, every word found twice and every path
+	 * that does not spell its word.
+	 * @param what the solver and setting checked
+	 * @param board the board solved
+	 * @param expected the words BoggleSolver.solve() found
+	 * @param found the words the solver being checked found
+	 */
+	private void compare(String what, BoggleBoard board, List<BoggleWord> expected, List<BoggleWord> found) {
+		TreeSet<String> expectedWords = new TreeSet<String>();
+		for (BoggleWord word : expected) {
+			expectedWords.add(word.getWord());
+		}
+		TreeSet<String> foundWords = new TreeSet<String>();
+		for (BoggleWord word : found) {
+			if (!foundWords.add(word.getWord())) {
+				mismatch(what, board, word.getWord() + " found twice");
+			}
+			if (!spells(board, word)) {
+				mismatch(what, board, "the path for " + word.getWord() + " does not spell it");
+			}
+		}
+		for (String word : expectedWords) {
+			if (!foundWords.contains(word)) {
+				mismatch(what, board, word + " missing");
+			}
+		}
+		for (String word : foundWords) {
+			if (!expectedWords.contains(word)) {
+				mismatch(what, board, word + " is not on the board");
+			}
+		}
+	}
+
+	/**
+	 * Counts a mismatch for every place where found differs from expected:
+	 * another word, or the same word on another path.
+	 * @param what the solver and setting checked
+	 * @param board the board solved
+	 * @param expected the words in the order they should come
+	 * @param found the words the solver being checked found
+	 */
+	private void compareOrder(String what, BoggleBoard board, List<BoggleWord> expected, List<BoggleWord> found) {
+		if (expected.size() != found.size()) {
+			mismatch(what, board, found.size() + " words, not " + expected.size());
+		}
+		for (int i = 0; i < Math.min(expected.size(), found.size()); i++) {
+			BoggleWord want = expected.get(i);
+			BoggleWord got = found.get(i);
+			if (!want.getWord().equals(got.getWord())) {
+				mismatch(what, board, "word " + i + " is " + got.getWord() + ", not " + want.getWord());
+				return; //every word after this one is out of place too
+			}
+			if (!samePath(want, got)) {
+				mismatch(what, board, "the path for " + got.getWord() + " is not the first one found");
+			}
+		}
+	}
+
+	/** @return true if both words run through the same cells */
+	private static boolean samePath(BoggleWord first, BoggleWord second) {
+		if (first.length() != second.length()) {
+			return false;
+		}
+		for (int step = 0; step < first.length(); step++) {
+			if (first.getCell(step) != second.getCell(step)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param board a board
+	 * @param word a word and a path on board
+	 * @return true if the path runs through distinct open cells, each a
+	 * 		neighbor of the one before, and spells the word ('Q' as "QU")
+	 */
+	private static boolean spells(BoggleBoard board, BoggleWord word) {
+		int dimension = board.getDimension();
+		boolean[] visited = new boolean[dimension * dimension];
+		StringBuilder letters = new StringBuilder();
+		for (int step = 0; step < word.length(); step++) {
+			int cell = word.getCell(step);
+			if (cell < 0 || cell >= visited.length || visited[cell]
+					|| (step > 0 && !board.isNeighbor(word.getCell(step - 1), cell))) {
+				return false;
+			}
+			visited[cell] = true;
+			char tile = board.charAt(cell / dimension, cell % dimension);
+			if (tile == BoggleBoard.BLOCKED) {
+				return false;
+			}
+			letters.append(tile == 'Q' ? "QU" : String.valueOf(tile));
+		}
+		return letters.toString().equals(word.getWord());
+	}
+
+	/** Count a mismatch, and print it if it is one of the first few. */
+	private void mismatch(String what, BoggleBoard board, String message) {
+		if (mismatches++ < MISMATCHES_SHOWN) {
+			System.err.println(what + " on " + board.getTopology() + " board:\n" + board + message);
+		}
+	}
+
+	/**
+	 * @param topology how cells are connected
+	 * @param dimension dimension N of the boards
+	 * @return BOARDS_PER_SIZE boards drawn from a seed fixed for the topology and dimension
+	 */
+	private static BoggleBoard[] boards(BoggleBoard.Topology topology, int dimension) {
+		Random rand = new Random(SEED + 31 * dimension + topology.ordinal());
+		BoggleBoard[] boards = new BoggleBoard[BOARDS_PER_SIZE];
+		for (int i = 0; i < boards.length; i++) {
+			String drawn = i % 4 == 2 ? Q_LETTERS : LETTERS;
+			char[][] letters = new char[dimension][dimension];
+			for (int cell = 0; cell < dimension * dimension; cell++) {
+				letters[cell / dimension][cell % dimension] = drawn.charAt(rand.nextInt(drawn.length()));
+			}
+			if (i % 2 == 1) {
+				int blocked = rand.nextInt(dimension * dimension);
+				letters[blocked / dimension][blocked % dimension] = BoggleBoard.BLOCKED;
+			}
+			boards[i] = new BoggleBoard(letters, topology);
+		}
+		return boards;
+	}
+} // class SolverCheck
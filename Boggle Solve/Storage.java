@@ -1,4 +1,7 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Stack;
 
@@ -11,18 +14,31 @@ import java.util.Stack;
  *  @author mvail
  */
 public class Storage<T> {
-	/** supported underlying data structures for Storage to use */
-	public static enum DataStructure {stack, queue}
+	/** supported underlying data structures for Storage to use: the original
+	 *  stack and queue, a stack and a queue on an unsynchronized ArrayDeque,
+	 *  and a priority queue that retrieves the smallest element first */
+	public static enum DataStructure {stack, queue, arrayStack, arrayQueue, priority}
 	/** the data structure chosen for this Storage to use */
 	private DataStructure dataStructure;
 	/** the data structures - only one will be instantiated and used by this Storage */
 	private Queue<T> queue;
 	private Stack<T> stack;
+	private ArrayDeque<T> deque;
+	private PriorityQueue<T> priorityQueue;
 	
-	/** Constructor
+	/** Constructor; priority storage orders elements by their natural ordering
 	 * @param dataStructure choice of DataStructures 
 	 */
 	public Storage(DataStructure dataStructure) {
+		this(dataStructure, null);
+	}
+	
+	/** Constructor
+	 * @param dataStructure choice of DataStructures 
+	 * @param order for priority storage, the order to retrieve elements in (smallest first),
+	 * 		or null for their natural ordering; ignored by the other DataStructures
+	 */
+	public Storage(DataStructure dataStructure, Comparator<? super T> order) {
 		this.dataStructure = dataStructure;
 		switch (this.dataStructure) {
 		case stack:
@@ -30,6 +46,13 @@ public class Storage<T> {
 			break;
 		case queue:
 			queue = new LinkedList<T>();
+			break;
+		case arrayStack:
+		case arrayQueue:
+			deque = new ArrayDeque<T>();
+			break;
+		case priority:
+			priorityQueue = new PriorityQueue<T>(11, order);
 		}
 	}
 	
@@ -43,6 +66,15 @@ public class Storage<T> {
 			break;
 		case queue:
 			queue.offer(element);
+			break;
+		case arrayStack:
+			deque.push(element);
+			break;
+		case arrayQueue:
+			deque.offer(element);
+			break;
+		case priority:
+			priorityQueue.offer(element);
 		}
 	}
 	
@@ -55,6 +87,11 @@ public class Storage<T> {
 			return stack.pop();
 		case queue:
 			return queue.poll();
+		case arrayStack:
+		case arrayQueue:
+			return deque.poll(); //push() adds to the head, offer() to the tail
+		case priority:
+			return priorityQueue.poll();
 		default:
 			throw new RuntimeException("unreachable"); //shouldn't ever happen b/c we're using an enum and have all types covered
 		}
@@ -67,6 +104,11 @@ public class Storage<T> {
 			return stack.isEmpty();
 		case queue:
 			return queue.isEmpty();
+		case arrayStack:
+		case arrayQueue:
+			return deque.isEmpty();
+		case priority:
+			return priorityQueue.isEmpty();
 		default:
 			throw new RuntimeException("unreachable"); //shouldn't ever happen b/c we're using an enum and have all types covered
 		}
@@ -79,6 +121,11 @@ public class Storage<T> {
 			return stack.size();
 		case queue:
 			return queue.size();
+		case arrayStack:
+		case arrayQueue:
+			return deque.size();
+		case priority:
+			return priorityQueue.size();
 		default:
 			throw new RuntimeException("unreachable"); //shouldn't ever happen b/c we're using an enum and have all types covered
 		}
@@ -0,0 +1,312 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Solves boards by checking each dictionary word against the board,
+ * instead of following paths on the board and checking them against the
+ * dictionary the way BoggleSolver does. With a small dictionary, such as a
+ * themed pack of a few hundred words, or on a very large board, there are
+ * far fewer words to check than board paths to follow. BoggleSolvePlanner
+ * picks between the two.
+ *
+ * The words are checked in alphabetical order, as tile sequences ('Q'
+ * standing for "QU"). For each tile of the current word the solver keeps
+ * the list of every path that spells the word up to that tile: the first
+ * list comes from an index of the cells holding each letter, and each
+ * later list from the neighbors of the paths in the one before that hold
+ * the next tile. Consecutive words share long prefixes, so the lists for
+ * the shared part are kept and only the rest is extended. Once a prefix
+ * has no paths, every later word that starts with it is skipped without
+ * looking at the board. A tile whose letter never sits next to the
+ * previous tile's letter anywhere on the board (see
+ * BoggleBoard.getAdjacentLetters()) ends the prefix without its paths
+ * being extended at all.
+ *
+ * On boards with many repeats of a word's letters the number of paths can
+ * grow exponentially with each tile. A list is never allowed past
+ * MAX_PATHS_PER_CELL paths for each cell of the board: once one would,
+ * that word is instead checked depth first from each path of the list
+ * before it, which needs no more memory than the word's length, and the
+ * next word builds the list again.
+ *
+ * The words found are the same as BoggleSolver.solve() finds, in
+ * alphabetical order, each with one of its paths. One WordFirstBoggleSolver
+ * can solve any number of boards, from any number of threads at once.
+ *
+ * @author Stan Bessey
+ */
+public class WordFirstBoggleSolver {
+	/** most paths kept in the list for one tile past the first, per cell of the board */
+	private static final int MAX_PATHS_PER_CELL = 64;
+
+	private final BoggleDictionary dictionary;
+	/** the dictionary's words that can be spelled on some board, in alphabetical order */
+	private final String[] words;
+	/** the tiles that spell each word; 'Q' stands for "QU" */
+	private final char[][] wordTiles;
+	/** number of leading tiles each word shares with the word before it */
+	private final int[] sharedTiles;
+	/** most tiles in any word */
+	private final int maxTiles;
+
+	/**
+	 * Lists the dictionary's words as tile sequences, once for every board this solver solves.
+	 * @param dictionary words to search for
+	 */
+	public WordFirstBoggleSolver(BoggleDictionary dictionary) {
+		this.dictionary = dictionary;
+		ArrayList<String> spellable = new ArrayList<String>();
+		ArrayList<char[]> tiles = new ArrayList<char[]>();
+		for (Iterator<String> iter = dictionary.iterator(); iter.hasNext();) {
+			String word = iter.next();
+			char[] wordTiles = toTiles(word);
+			if (word.length() >= BoggleSolver.MINIMUM_WORD_LENGTH && wordTiles != null) {
+				spellable.add(word);
+				tiles.add(wordTiles);
+			}
+		}
+		words = spellable.toArray(new String[spellable.size()]);
+		wordTiles = tiles.toArray(new char[tiles.size()][]);
+		sharedTiles = new int[words.length];
+		int longest = 0;
+		for (int w = 0; w < words.length; w++) {
+			longest = Math.max(longest, wordTiles[w].length);
+			if (w > 0) {
+				char[] previous = wordTiles[w - 1];
+				int shared = 0;
+				while (shared < previous.length && shared < wordTiles[w].length
+						&& previous[shared] == wordTiles[w][shared]) {
+					shared++;
+				}
+				sharedTiles[w] = shared;
+			}
+		}
+		maxTiles = longest;
+	}
+
+	/** @return the dictionary this solver searches for */
+	public BoggleDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/** @return number of dictionary words long enough, and spellable, to be checked against each board */
+	public int getWordCount() {
+		return words.length;
+	}
+
+	/**
+	 * Finds every dictionary word on the board.
+	 * @param board the board to solve
+	 * @return the words found, in alphabetical order, each with one path that spells it
+	 */
+	public ArrayList<BoggleWord> solve(BoggleBoard board) {
+		final ArrayList<BoggleWord> found = new ArrayList<BoggleWord>();
+		solve(board, new WordSink() {
+			public void wordFound(BoggleWord word) {
+				found.add(word);
+			}
+		});
+		return found;
+	}
+
+	/**
+	 * Finds every dictionary word on the board, passing each to sink as soon as it is found.
+	 * @param board the board to solve
+	 * @param sink receives each word once, in alphabetical order
+	 */
+	public void solve(BoggleBoard board, WordSink sink) {
+		int dimension = board.getDimension();
+		int cellCount = dimension * dimension;
+		char[] tiles = new char[cellCount];
+		for (int cell = 0; cell < cellCount; cell++) {
+			tiles[cell] = board.charAt(cell / dimension, cell % dimension);
+		}
+		int[] neighborStarts = board.getNeighborStarts();
+		int[] neighborCells = board.getNeighborCells();
+		int[] adjacentLetters = board.getAdjacentLetters();
+
+		//the cells holding each letter, so a word's first tile goes straight to its cells;
+		//cells holding no letter A to Z, which no word uses, are left out
+		int[] letterStarts = new int[27];
+		for (char tile : tiles) {
+			int letter = BoggleBoard.letterIndex(tile);
+			if (letter >= 0) {
+				letterStarts[letter + 1]++;
+			}
+		}
+		for (int letter = 0; letter < 26; letter++) {
+			letterStarts[letter + 1] += letterStarts[letter];
+		}
+		int[] letterCells = new int[letterStarts[26]];
+		int[] filled = new int[26];
+		for (int cell = 0; cell < cellCount; cell++) {
+			int letter = BoggleBoard.letterIndex(tiles[cell]);
+			if (letter >= 0) {
+				letterCells[letterStarts[letter] + filled[letter]++] = cell;
+			}
+		}
+
+		//the paths spelling the current word up to each tile: the last cell of
+		//each, and the index of the path it extends in the list before
+		int[][] levelCells = new int[maxTiles][16];
+		int[][] levelParents = new int[maxTiles][16];
+		int[] levelSizes = new int[maxTiles];
+		int maxLevelPaths = MAX_PATHS_PER_CELL * cellCount;
+		int levels = 0; //lists still valid for the current word
+
+		for (int w = 0; w < words.length; w++) {
+			char[] word = wordTiles[w];
+			int level = Math.min(sharedTiles[w], levels);
+			if (level > 0 && levelSizes[level - 1] == 0) {
+				continue; //a prefix already known to have no paths
+			}
+			boolean overflow = false;
+			for (; level < word.length; level++) {
+				int size = 0;
+				if (level == 0) {
+					int letter = word[0] - 'A';
+					for (int i = letterStarts[letter]; i < letterStarts[letter + 1]; i++) {
+						levelCells[0][size] = letterCells[i];
+						levelParents[0][size++] = -1;
+						if (size == levelCells[0].length) {
+							levelCells[0] = grow(levelCells[0]);
+							levelParents[0] = grow(levelParents[0]);
+						}
+					}
+				} else if ((adjacentLetters[word[level - 1] - 'A'] & (1 << (word[level] - 'A'))) != 0) {
+					int[] cells = levelCells[level - 1];
+					for (int p = 0; p < levelSizes[level - 1] && !overflow; p++) {
+						int last = cells[p];
+						for (int i = neighborStarts[last]; i < neighborStarts[last + 1]; i++) {
+							int next = neighborCells[i];
+							if (tiles[next] != word[level] || onPath(next, level - 1, p, levelCells, levelParents)) {
+								continue;
+							}
+							if (size == maxLevelPaths) {
+								overflow = true;
+								break;
+							}
+							levelCells[level][size] = next;
+							levelParents[level][size++] = p;
+							if (size == levelCells[level].length && size < maxLevelPaths) {
+								levelCells[level] = grow(levelCells[level]);
+								levelParents[level] = grow(levelParents[level]);
+							}
+						}
+					}
+				}
+				if (overflow) {
+					break; //level's list is incomplete, so only the lists before it stay valid
+				}
+				levelSizes[level] = size;
+				if (size == 0) {
+					level++;
+					break;
+				}
+			}
+			levels = level;
+			if (overflow) {
+				int[] path = new int[word.length];
+				for (int p = 0; p < levelSizes[level - 1]; p++) {
+					for (int l = level - 1, q = p; l >= 0; q = levelParents[l][q], l--) {
+						path[l] = levelCells[l][q];
+					}
+					if (extend(word, path, level, tiles, neighborStarts, neighborCells)) {
+						sink.wordFound(new BoggleWord(words[w], path, dimension));
+						break;
+					}
+				}
+				continue;
+			}
+			if (levelSizes[word.length - 1] > 0 && levels == word.length) {
+				int[] path = new int[word.length];
+				for (int l = word.length - 1, p = 0; l >= 0; p = levelParents[l][p], l--) {
+					path[l] = levelCells[l][p];
+				}
+				sink.wordFound(new BoggleWord(words[w], path, dimension));
+			}
+		}
+	}
+
+	/**
+	 * @param cell a cell
+	 * @param level list holding the last cell of a path
+	 * @param index the path's place in that list
+	 * @return true if cell is on the path
+	 */
+	private static boolean onPath(int cell, int level, int index, int[][] levelCells, int[][] levelParents) {
+		for (; level >= 0; index = levelParents[level][index], level--) {
+			if (levelCells[level][index] == cell) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Extends a path by the rest of a word's tiles, depth first.
+	 * @param word the tiles to spell
+	 * @param path cells spelling the word's first length tiles; filled in
+	 * 		with the rest if the word can be finished
+	 * @param length number of cells already on the path
+	 * @return true if path now spells the whole word
+	 */
+	private static boolean extend(char[] word, int[] path, int length, char[] tiles,
+			int[] neighborStarts, int[] neighborCells) {
+		if (length == word.length) {
+			return true;
+		}
+		int last = path[length - 1];
+		for (int i = neighborStarts[last]; i < neighborStarts[last + 1]; i++) {
+			int next = neighborCells[i];
+			if (tiles[next] != word[length] || contains(path, length, next)) {
+				continue;
+			}
+			path[length] = next;
+			if (extend(word, path, length + 1, tiles, neighborStarts, neighborCells)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** @return true if cell is among the first length cells of path */
+	private static boolean contains(int[] path, int length, int cell) {
+		for (int i = 0; i < length; i++) {
+			if (path[i] == cell) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** @return a copy of list twice as long */
+	private static int[] grow(int[] list) {
+		int[] bigger = new int[list.length * 2];
+		System.arraycopy(list, 0, bigger, 0, list.length);
+		return bigger;
+	}
+
+	/**
+	 * @param word a dictionary word, in upper case
+	 * @return the tiles that spell word, 'Q' standing for "QU", or null if
+	 * 		no tiles can spell it (a Q not followed by U)
+	 */
+	private static char[] toTiles(String word) {
+		char[] tiles = new char[word.length()];
+		int count = 0;
+		for (int i = 0; i < word.length(); i++) {
+			char letter = word.charAt(i);
+			if (letter == 'Q') {
+				if (i + 1 == word.length() || word.charAt(i + 1) != 'U') {
+					return null;
+				}
+				i++;
+			}
+			tiles[count++] = letter;
+		}
+		char[] exact = new char[count];
+		System.arraycopy(tiles, 0, exact, 0, count);
+		return exact;
+	}
+} // class WordFirstBoggleSolver
@@ -0,0 +1,16 @@
+/**
+ * WordSink receives the words a solver finds as soon as each one is found,
+ * so a caller can start using results before the solve finishes and never
+ * has to hold every path in memory.
+ *
+ * @author Stan Bessey
+ */
+public interface WordSink
+{
+	/**
+	 * Called once for each distinct word found during a solve.
+	 *
+	 * @param word the word, with the path that spelled it first
+	 */
+	public void wordFound(BoggleWord word);
+}